@@ -0,0 +1,37 @@
+#!/bin/bash
+# Compares pglz and lz4 for the stored content bodies: table size, write
+# time and full read time. Works on temporary copies, so the contents
+# table itself is left untouched.
+#
+# Usage: scripts/content-compression-bench.sh [container]
+
+CONTAINER="${1:-vekku-postgres}"
+
+docker exec -i "$CONTAINER" psql -U vekku -d vekku -v ON_ERROR_STOP=1 <<'SQL'
+\echo 'Current contents table'
+SELECT pg_size_pretty(pg_total_relation_size('contents')) AS total_size,
+       count(*) AS rows
+FROM contents;
+SELECT coalesce(pg_column_compression(content), 'none') AS stored_as,
+       count(*) AS rows
+FROM contents
+GROUP BY 1
+ORDER BY 1;
+
+\timing on
+
+\echo 'pglz: write, then read every body'
+CREATE TEMP TABLE bench_pglz (body text COMPRESSION pglz);
+INSERT INTO bench_pglz SELECT content FROM contents;
+SELECT sum(length(body)) AS chars FROM bench_pglz;
+
+\echo 'lz4: write, then read every body'
+CREATE TEMP TABLE bench_lz4 (body text COMPRESSION lz4);
+INSERT INTO bench_lz4 SELECT content FROM contents;
+SELECT sum(length(body)) AS chars FROM bench_lz4;
+
+\timing off
+
+SELECT pg_size_pretty(pg_total_relation_size('bench_pglz')) AS pglz_size,
+       pg_size_pretty(pg_total_relation_size('bench_lz4')) AS lz4_size;
+SQL
@@ -51,7 +51,7 @@ export default function DocsList() {
 
             const mappedDocs = data.content.map((d: any) => ({
                 ...d,
-                content: d.text || d.content
+                content: d.snippet || d.text || d.content
             }));
 
             setDocs(mappedDocs);
@@ -0,0 +1,104 @@
+package dev.kbd.vekku_server.content;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional recompression pass for content bodies. Postgres compresses
+ * large (TOASTed) values with the column's method, which migration V9
+ * sets to LZ4 instead of pglz.
+ * <p>
+ * Every stored value records the method it was compressed with, so rows
+ * written before the switch stay readable and are only rewritten by this
+ * pass. It walks the table in id order, one batch per transaction, and
+ * rewrites the bodies still stored with another method than the column's;
+ * it logs the table size before and after.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ContentCompressionJob {
+
+    // pg_attribute.attcompression codes and the method names they stand for
+    private static final Map<String, String> METHODS = Map.of(
+        "p",
+        "pglz",
+        "l",
+        "lz4"
+    );
+
+    private final ContentRepo contentRepo;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+        new CustomizableThreadFactory("content-compression-")
+    );
+
+    @Value("${vekku.content.compression.recompress-on-startup}")
+    private boolean recompressOnStartup;
+
+    @Value("${vekku.content.compression.batch-size}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onStartup() {
+        if (!recompressOnStartup) {
+            return;
+        }
+        String method = METHODS.get(contentRepo.contentCompression());
+        if (method == null) {
+            log.info("Content bodies use the server's default compression, not recompressing");
+            return;
+        }
+        runner.submit(() -> recompress(method));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void recompress(String method) {
+        try {
+            long sizeBefore = contentRepo.tableSize();
+            long started = System.nanoTime();
+            long rewritten = 0;
+            UUID after = new UUID(0, 0);
+            while (!Thread.currentThread().isInterrupted()) {
+                List<UUID> ids = contentRepo.findIdsToRecompress(
+                    after,
+                    method,
+                    batchSize
+                );
+                if (ids.isEmpty()) {
+                    break;
+                }
+                contentRepo.recompress(ids);
+                rewritten += ids.size();
+                after = ids.getLast();
+            }
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            // Old row versions only free their space once vacuumed
+            log.info(
+                "Recompressed {} contents with {} in {} ms; table size {} bytes before, {} after",
+                rewritten,
+                method,
+                millis,
+                sizeBefore,
+                contentRepo.tableSize()
+            );
+        } catch (Exception e) {
+            log.error("Content recompression failed", e);
+        }
+    }
+}
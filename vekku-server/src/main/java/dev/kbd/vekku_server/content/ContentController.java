@@ -1,18 +1,31 @@
 package dev.kbd.vekku_server.content;
 
 import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDeleteResult;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentImportResult;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentPage;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentSearchPage;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentUploadResult;
 import dev.kbd.vekku_server.content.api.ContentDTOs.CreateContentRequest;
+import dev.kbd.vekku_server.content.api.ContentDTOs.DeleteContentsRequest;
 import dev.kbd.vekku_server.content.api.ContentDTOs.UpdateContentRequest;
+import dev.kbd.vekku_server.content.api.IContentSearchService;
 import dev.kbd.vekku_server.content.api.IContentService;
-import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
-import java.util.List;
+import java.io.InputStream;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("api/v1/content")
@@ -21,7 +34,8 @@ import org.springframework.web.server.ResponseStatusException;
 class ContentController {
 
     final IContentService contentService;
-    final ISuggestionService suggestionService;
+    final IContentSearchService contentSearchService;
+    final LibraryExporter libraryExporter;
 
     /**
      * Create content and publishes event about it
@@ -48,6 +62,63 @@ class ContentController {
         return content;
     }
 
+    /**
+     * Creates content from a raw text body, which may be sent chunked. The
+     * body is streamed to storage rather than held in memory, so there is
+     * no practical size limit beyond vekku.content.upload.max-bytes.
+     */
+    @PostMapping(
+        path = "/stream",
+        consumes = {
+            MediaType.TEXT_PLAIN_VALUE,
+            MediaType.TEXT_MARKDOWN_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+        }
+    )
+    @ResponseStatus(HttpStatus.CREATED)
+    public ContentUploadResult uploadContent(
+        @RequestParam String title,
+        @RequestParam ContentType contentType,
+        @RequestParam(required = false) Set<String> tags,
+        InputStream body,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        log.info("Uploading content '{}' for {}", title, jwt.getSubject());
+        return contentService.uploadContent(
+            jwt.getSubject(),
+            title,
+            contentType,
+            tags,
+            body
+        );
+    }
+
+    /**
+     * Creates many contents at once from NDJSON (one create request per
+     * line) or a JSON array of create requests
+     */
+    @PostMapping(
+        path = "/import",
+        consumes = { "application/x-ndjson", MediaType.APPLICATION_JSON_VALUE }
+    )
+    @ResponseStatus(HttpStatus.CREATED)
+    public ContentImportResult importContents(
+        InputStream body,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        log.info("Importing contents for {}", jwt.getSubject());
+        ContentImportResult result = contentService.importContents(
+            jwt.getSubject(),
+            body
+        );
+        log.info(
+            "Imported {} contents for user {}",
+            result.imported(),
+            jwt.getSubject()
+        );
+        return result;
+    }
+
     @PutMapping
     public ContentDTO updateContent(
         @RequestBody UpdateContentRequest request,
@@ -74,11 +145,90 @@ class ContentController {
             jwt.getSubject()
         );
 
-        //TODO publish event
-        suggestionService.deleteSuggestionsOfContent(id);
         contentService.deleteContent(id, jwt.getSubject());
     }
 
+    /**
+     * Deletes the listed contents, or all contents matching the filters.
+     * They vanish from reads at once and are purged in the background.
+     */
+    @PostMapping("/bulk-delete")
+    public ContentDeleteResult deleteContents(
+        @RequestBody DeleteContentsRequest request,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        log.info("Bulk deleting contents of user {}", jwt.getSubject());
+        return contentService.deleteContents(jwt.getSubject(), request);
+    }
+
+    /**
+     * Searches the user's contents by words and by meaning
+     * @param cursor {@code nextCursor} of the previous page
+     */
+    @GetMapping("/search")
+    public ContentSearchPage searchContents(
+        @RequestParam("q") String query,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false, defaultValue = "10") int limit,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        String userId = jwt.getSubject();
+        log.info("Searching contents of user {} for '{}'", userId, query);
+        return contentSearchService.search(userId, query, cursor, limit);
+    }
+
+    /**
+     * Exports the user's contents, tags and tag links as NDJSON, optionally
+     * gzipped. The response is streamed as it is read from the database.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLibrary(
+        @RequestParam(required = false, defaultValue = "false") boolean gzip,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        String userId = jwt.getSubject();
+        log.info("Exporting the library of user {}", userId);
+        String filename = "vekku-library.ndjson" + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+            .contentType(
+                gzip
+                    ? MediaType.parseMediaType("application/gzip")
+                    : MediaType.parseMediaType("application/x-ndjson")
+            )
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString()
+            )
+            .body(output -> libraryExporter.export(userId, output, gzip));
+    }
+
+    /**
+     * Lists the user's contents by tags, newest first: those with every
+     * tag in {@code all}, at least one in {@code any} and none in
+     * {@code none}. At least one of all and any is required.
+     * @param cursor {@code nextCursor} of the previous page
+     */
+    @GetMapping("/by-tags")
+    public ContentPage getContentsByTags(
+        @RequestParam(required = false) Set<String> all,
+        @RequestParam(required = false) Set<String> any,
+        @RequestParam(required = false) Set<String> none,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false, defaultValue = "10") int limit,
+        @RequestParam(required = false) Set<String> fields,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        return contentService.getContentsByTags(
+            jwt.getSubject(),
+            all,
+            any,
+            none,
+            cursor,
+            limit,
+            fields
+        );
+    }
+
     @GetMapping("/{id}")
     public ContentDTO getContent(
         @PathVariable String id,
@@ -96,10 +246,11 @@ class ContentController {
     }
 
     @GetMapping
-    public List<ContentDTO> getContents(
+    public ContentPage getContents(
         @RequestParam(required = false) String cursor,
         @RequestParam(required = false, defaultValue = "10") int limit,
         @RequestParam(required = false, defaultValue = "next") String direction,
+        @RequestParam(required = false) Set<String> fields,
         @AuthenticationPrincipal Jwt jwt
     ) {
         String userId = jwt.getSubject();
@@ -107,7 +258,8 @@ class ContentController {
             userId,
             cursor,
             limit,
-            direction
+            direction,
+            fields
         );
     }
 }
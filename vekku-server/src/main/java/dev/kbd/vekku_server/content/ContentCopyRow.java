@@ -0,0 +1,201 @@
+package dev.kbd.vekku_server.content;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.infrastructure.util.Hashing;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * One row of {@code COPY contents FROM STDIN} in text format, with the
+ * content column read straight from an upload stream. The body passes
+ * through a fixed buffer on its way to Postgres, so memory use does not
+ * grow with its size.
+ * <p>
+ * On the way it hashes the body the way the suggestion result cache does,
+ * counts its bytes, and keeps its opening text for the snippet. Those are
+ * complete once the reader has been read to the end.
+ */
+final class ContentCopyRow extends Reader {
+
+    /** Column order of {@link #read}; the body comes last */
+    static final String COLUMNS =
+        "id, title, content_type, fk_user_id, created_at, updated_at, content";
+
+    // Enough text for a snippet even after whitespace collapses
+    private static final int OPENING_LENGTH = ContentSnippets.MAX_LENGTH * 4;
+
+    private final String head;
+    private int headPosition;
+    private final ByteLimit bytes;
+    private final MessageDigest digest;
+    private final Reader body;
+    private final char[] buffer = new char[8192];
+    private int bufferPosition;
+    private int bufferLimit;
+    // Second character of an escape that did not fit the caller's array
+    private char pending;
+    private boolean bodyDone;
+    private boolean rowDone;
+    private final StringBuilder opening = new StringBuilder();
+
+    ContentCopyRow(
+        UUID id,
+        String title,
+        ContentType contentType,
+        String userId,
+        LocalDateTime now,
+        InputStream upload,
+        long maxBytes
+    ) {
+        this.head = String.join(
+            "\t",
+            id.toString(),
+            escaped(title),
+            contentType.name(),
+            escaped(userId),
+            now.toString(),
+            now.toString(),
+            ""
+        );
+        this.bytes = new ByteLimit(upload, maxBytes);
+        this.digest = Hashing.sha256();
+        // Same input as Hashing.sha256Hex(contentType.name(), content)
+        digest.update(contentType.name().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        this.body = new InputStreamReader(
+            new DigestInputStream(bytes, digest),
+            StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+        );
+    }
+
+    @Override
+    public int read(char[] out, int offset, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (headPosition < head.length()) {
+                out[offset + written++] = head.charAt(headPosition++);
+            } else if (pending != 0) {
+                out[offset + written++] = pending;
+                pending = 0;
+            } else if (bufferPosition < bufferLimit) {
+                char c = buffer[bufferPosition++];
+                out[offset + written++] = switch (c) {
+                    case '\\' -> escape('\\');
+                    case '\n' -> escape('n');
+                    case '\r' -> escape('r');
+                    case '\t' -> escape('t');
+                    case '\0' -> throw new IllegalArgumentException(
+                        "Content must not contain NUL characters"
+                    );
+                    default -> c;
+                };
+            } else if (!bodyDone) {
+                if (written > 0) {
+                    // Hand over what is ready before blocking on the upload
+                    break;
+                }
+                fill();
+            } else if (!rowDone) {
+                out[offset + written++] = '\n';
+                rowDone = true;
+            } else {
+                break;
+            }
+        }
+        return written == 0 && length > 0 ? -1 : written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+
+    /** Lowercase hex SHA-256 of the content type and body, once read; call once */
+    String contentHash() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Size of the body in bytes, once read */
+    long size() {
+        return bytes.count;
+    }
+
+    String snippet() {
+        return ContentSnippets.of(opening.toString());
+    }
+
+    private void fill() throws IOException {
+        int read = body.read(buffer, 0, buffer.length);
+        bufferPosition = 0;
+        bufferLimit = Math.max(read, 0);
+        bodyDone = read < 0;
+        int keep = Math.min(bufferLimit, OPENING_LENGTH - opening.length());
+        if (keep > 0) {
+            opening.append(buffer, 0, keep);
+        }
+    }
+
+    private char escape(char second) {
+        pending = second;
+        return '\\';
+    }
+
+    private static String escaped(String value) {
+        return value
+            .replace("\\", "\\\\")
+            .replace("\n", "\\n")
+            .replace("\r", "\\r")
+            .replace("\t", "\\t");
+    }
+
+    /** Fails the upload once the body grows past the limit */
+    private static final class ByteLimit extends FilterInputStream {
+
+        private final long max;
+        private long count;
+
+        ByteLimit(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        private void counted(int read) {
+            count += read;
+            if (count > max) {
+                throw new IllegalArgumentException(
+                    "Content is larger than " + max + " bytes"
+                );
+            }
+        }
+    }
+}
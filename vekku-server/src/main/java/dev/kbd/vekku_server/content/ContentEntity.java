@@ -8,6 +8,8 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -21,10 +23,13 @@ import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 @Entity
 @Table(name = "contents")
+// Tombstones are invisible to every entity read; only ContentPurger sees them
+@SQLRestriction("deleted_at IS NULL")
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -43,6 +48,10 @@ class ContentEntity {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    // Preview for listings, so pages never read the TEXT column
+    @Column(length = ContentSnippets.MAX_LENGTH + 1)
+    private String snippet;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, name = "content_type")
     private ContentType contentType;
@@ -62,4 +71,14 @@ class ContentEntity {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Set when the content is deleted; the row goes once purged
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    @PrePersist
+    @PreUpdate
+    void updateSnippet() {
+        snippet = ContentSnippets.of(content);
+    }
 }
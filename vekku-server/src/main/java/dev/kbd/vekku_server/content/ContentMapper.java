@@ -1,9 +1,12 @@
 package dev.kbd.vekku_server.content;
 
 import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentSummaryDTO;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring")
 interface ContentMapper {
     ContentDTO toDto(ContentEntity content);
+
+    ContentSummaryDTO toSummaryDto(ContentSummary content);
 }
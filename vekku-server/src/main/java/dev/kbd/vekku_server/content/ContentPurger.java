@@ -0,0 +1,77 @@
+package dev.kbd.vekku_server.content;
+
+import dev.kbd.vekku_server.content.ContentRepo.Tombstone;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchDeletedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentDeletedEvent;
+import dev.kbd.vekku_server.tag.api.ITagContentService;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Removes deleted contents for good. Deletes only mark rows; this takes the
+ * tombstones a batch at a time and, in one transaction, drops their tag
+ * links and rows with one statement each and queues one
+ * {@link ContentBatchDeletedEvent}, on which the suggestion side removes
+ * their vectors. A failed batch stays marked and is retried on the next run.
+ * Bodies are never read: the event names the contents by id, so a purge
+ * takes the same memory however large they are.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ContentPurger {
+
+    private final ContentRepo contentRepo;
+    private final ITagContentService tagContentService;
+    private final IContentEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${vekku.content.purge.batch-size}")
+    private int batchSize;
+
+    /** Purges full batches back to back until no tombstone is left */
+    @Scheduled(fixedDelayString = "${vekku.content.purge.interval-ms}")
+    void purge() {
+        try {
+            Integer purged;
+            do {
+                purged = transactionTemplate.execute(status -> purgeBatch());
+            } while (purged != null && purged == batchSize);
+        } catch (Exception e) {
+            log.warn("Content purge failed, retrying next run: {}", e.toString());
+        }
+    }
+
+    private int purgeBatch() {
+        List<Tombstone> tombstones = contentRepo.lockTombstones(batchSize);
+        if (tombstones.isEmpty()) {
+            return 0;
+        }
+        List<UUID> ids = tombstones.stream().map(Tombstone::getId).toList();
+        tagContentService.deleteLinksOfContents(
+            ids.stream().map(UUID::toString).toList()
+        );
+        eventPublisher.publishContentBatchDeleted(
+            new ContentBatchDeletedEvent(
+                tombstones
+                    .stream()
+                    .map(tombstone ->
+                        new ContentDeletedEvent(
+                            tombstone.getId().toString(),
+                            tombstone.getUserId()
+                        )
+                    )
+                    .toList()
+            )
+        );
+        contentRepo.purge(ids);
+        log.info("Purged {} deleted contents", tombstones.size());
+        return tombstones.size();
+    }
+}
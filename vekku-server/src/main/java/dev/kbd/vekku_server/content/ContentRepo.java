@@ -1,12 +1,270 @@
 package dev.kbd.vekku_server.content;
 
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 interface ContentRepo
     extends
         JpaRepository<ContentEntity, UUID>,
-        JpaSpecificationExecutor<ContentEntity> {}
+        JpaSpecificationExecutor<ContentEntity> {
+    /**
+     * Full-text document of a content, title weighted above body. Queries
+     * must repeat it verbatim to use the {@code idx_contents_search} index
+     * (see V3__content_search_index.sql).
+     */
+    String SEARCH_VECTOR =
+        "(setweight(to_tsvector('english', title), 'A') || " +
+        "setweight(to_tsvector('english', content), 'B'))";
+
+    /**
+     * Ids of the user's contents matching the query, best ranked first.
+     * Bounded by the caller, see {@link #setLocalStatementTimeout}.
+     */
+    @Query(
+        nativeQuery = true,
+        value = "SELECT CAST(c.id AS text) FROM contents c, " +
+            "websearch_to_tsquery('english', :query) q " +
+            "WHERE c.fk_user_id = :userId AND c.deleted_at IS NULL " +
+            "AND " + SEARCH_VECTOR + " @@ q " +
+            "ORDER BY ts_rank_cd(" + SEARCH_VECTOR + ", q) DESC, c.id " +
+            "LIMIT :limit"
+    )
+    List<String> searchIds(
+        @Param("userId") String userId,
+        @Param("query") String query,
+        @Param("limit") int limit
+    );
+
+    // Keyset pages of summaries, newest first, over idx_contents_user_created.
+    // Only the projected columns are selected; the content body is never read.
+
+    String SUMMARY_COLUMNS =
+        "c.id AS id, c.title AS title, c.snippet AS snippet, " +
+        "c.contentType AS contentType, c.tags AS tags, " +
+        "c.createdAt AS createdAt, c.updatedAt AS updatedAt";
+
+    List<ContentSummary> findByUserIdOrderByCreatedAtDescIdDesc(
+        String userId,
+        Pageable pageable
+    );
+
+    List<ContentSummary> findByUserIdOrderByCreatedAtAscIdAsc(
+        String userId,
+        Pageable pageable
+    );
+
+    /** Rows listed after the cursor: older ones, newest first */
+    @Query(
+        "SELECT " + SUMMARY_COLUMNS + " FROM ContentEntity c WHERE c.userId = :userId " +
+            "AND (c.createdAt, c.id) < (:createdAt, :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC"
+    )
+    List<ContentSummary> findPageAfter(
+        @Param("userId") String userId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
+    /** Rows listed before the cursor: newer ones, oldest first */
+    @Query(
+        "SELECT " + SUMMARY_COLUMNS + " FROM ContentEntity c WHERE c.userId = :userId " +
+            "AND (c.createdAt, c.id) > (:createdAt, :id) " +
+            "ORDER BY c.createdAt ASC, c.id ASC"
+    )
+    List<ContentSummary> findPageBefore(
+        @Param("userId") String userId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
+    // Keyset pages of the user's contents matching a ContentTagFilter
+    // predicate, newest first. The predicate is answered by the GIN index
+    // idx_contents_tags; only the matching rows are sorted, never the user's
+    // whole table. Ids only, as native queries cannot map the jsonb tags.
+
+    String TAG_FILTER_CONDITION =
+        "c.fk_user_id = :userId AND c.deleted_at IS NULL " +
+        "AND c.tags @@ CAST(:predicate AS jsonpath) ";
+
+    @Query(
+        nativeQuery = true,
+        value = "SELECT c.id FROM contents c WHERE " + TAG_FILTER_CONDITION +
+            "ORDER BY c.created_at DESC, c.id DESC LIMIT :limit"
+    )
+    List<UUID> findIdsByTags(
+        @Param("userId") String userId,
+        @Param("predicate") String predicate,
+        @Param("limit") int limit
+    );
+
+    /** Matching rows listed after the cursor: older ones, newest first */
+    @Query(
+        nativeQuery = true,
+        value = "SELECT c.id FROM contents c WHERE " + TAG_FILTER_CONDITION +
+            "AND (c.created_at, c.id) < (:createdAt, :id) " +
+            "ORDER BY c.created_at DESC, c.id DESC LIMIT :limit"
+    )
+    List<UUID> findIdsByTagsAfter(
+        @Param("userId") String userId,
+        @Param("predicate") String predicate,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        @Param("limit") int limit
+    );
+
+    @Query(
+        "SELECT " + SUMMARY_COLUMNS + " FROM ContentEntity c WHERE c.id IN :ids"
+    )
+    List<ContentSummary> findSummariesByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query(
+        "SELECT " + SUMMARY_COLUMNS + " FROM ContentEntity c " +
+            "WHERE c.userId = :userId AND c.id IN :ids"
+    )
+    List<ContentSummary> findSummariesOfUserByIds(
+        @Param("userId") String userId,
+        @Param("ids") Collection<UUID> ids
+    );
+
+    /**
+     * Makes Postgres cancel any statement of the current transaction that
+     * runs longer than {@code ms}; the setting ends with the transaction.
+     */
+    @Query(
+        nativeQuery = true,
+        value = "SELECT set_config('statement_timeout', CAST(:ms AS text), true)"
+    )
+    String setLocalStatementTimeout(@Param("ms") long ms);
+
+    /** One keyset page of the whole table, in id order */
+    @Query("SELECT c FROM ContentEntity c WHERE c.id > :afterId ORDER BY c.id")
+    List<ContentEntity> findPageByIdAfter(
+        @Param("afterId") UUID afterId,
+        Pageable pageable
+    );
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM ContentEntity c WHERE c.userId = :userId")
+    Stream<ContentEntity> streamByUserId(@Param("userId") String userId);
+
+    // Column compression of content bodies, see ContentCompressionJob
+
+    /** pg_attribute.attcompression of the content column; empty for the server default */
+    @Query(
+        value = "SELECT attcompression::text FROM pg_attribute " +
+        "WHERE attrelid = 'contents'::regclass AND attname = 'content'",
+        nativeQuery = true
+    )
+    String contentCompression();
+
+    /** Bodies stored with another method; small ones are not compressed at all */
+    @Query(
+        value = "SELECT id FROM contents WHERE id > :afterId " +
+        "AND pg_column_compression(content) <> :method ORDER BY id LIMIT :limit",
+        nativeQuery = true
+    )
+    List<UUID> findIdsToRecompress(
+        @Param("afterId") UUID afterId,
+        @Param("method") String method,
+        @Param("limit") int limit
+    );
+
+    /** A changed value is compressed anew, with the column's current method */
+    @Modifying
+    @Transactional
+    @Query(
+        value = "UPDATE contents SET content = content || '' WHERE id IN (:ids)",
+        nativeQuery = true
+    )
+    void recompress(@Param("ids") List<UUID> ids);
+
+    @Query(
+        value = "SELECT pg_total_relation_size('contents')",
+        nativeQuery = true
+    )
+    long tableSize();
+
+    /** Fills in the columns a streamed upload's COPY row leaves out */
+    @Modifying
+    @Query(
+        "UPDATE ContentEntity c SET c.snippet = :snippet, c.tags = :tags " +
+        "WHERE c.id = :id"
+    )
+    void completeUpload(
+        @Param("id") UUID id,
+        @Param("snippet") String snippet,
+        @Param("tags") Set<String> tags
+    );
+
+    // Tombstones: deletes only mark rows, ContentPurger removes them later.
+    // Native, as the entity's restriction hides tombstones from JPQL.
+
+    @Modifying
+    @Query(
+        value = "UPDATE contents SET deleted_at = now() " +
+        "WHERE fk_user_id = :userId AND id IN (:ids) AND deleted_at IS NULL",
+        nativeQuery = true
+    )
+    int markDeleted(
+        @Param("userId") String userId,
+        @Param("ids") Collection<UUID> ids
+    );
+
+    /** Marks the user's contents matching every given filter; null filters match all */
+    @Modifying
+    @Query(
+        value = "UPDATE contents SET deleted_at = now() " +
+        "WHERE fk_user_id = :userId AND deleted_at IS NULL " +
+        "AND (CAST(:contentType AS text) IS NULL OR content_type = CAST(:contentType AS text)) " +
+        "AND (CAST(:tag AS text) IS NULL OR tags @> jsonb_build_array(CAST(:tag AS text))) " +
+        "AND (CAST(:createdBefore AS timestamp) IS NULL " +
+        "OR created_at < CAST(:createdBefore AS timestamp))",
+        nativeQuery = true
+    )
+    int markDeletedMatching(
+        @Param("userId") String userId,
+        @Param("contentType") String contentType,
+        @Param("tag") String tag,
+        @Param("createdBefore") LocalDateTime createdBefore
+    );
+
+    /** What a purge needs of a tombstone; never the body */
+    interface Tombstone {
+        UUID getId();
+        String getUserId();
+    }
+
+    /** Oldest tombstones, locked so concurrent purgers take distinct batches */
+    @Query(
+        value = "SELECT id, fk_user_id AS userId FROM contents " +
+        "WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit " +
+        "FOR UPDATE SKIP LOCKED",
+        nativeQuery = true
+    )
+    List<Tombstone> lockTombstones(@Param("limit") int limit);
+
+    @Modifying
+    @Query(
+        value = "DELETE FROM contents WHERE id IN (:ids) AND deleted_at IS NOT NULL",
+        nativeQuery = true
+    )
+    int purge(@Param("ids") Collection<UUID> ids);
+}
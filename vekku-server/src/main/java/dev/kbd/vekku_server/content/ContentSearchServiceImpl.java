@@ -0,0 +1,234 @@
+package dev.kbd.vekku_server.content;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentSearchHit;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentSearchPage;
+import dev.kbd.vekku_server.content.api.IContentSearchService;
+import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Runs a Postgres full-text leg and a vector leg in parallel and merges
+ * their rankings with reciprocal rank fusion: a content scores
+ * {@code 1 / (k + rank)} in each leg that found it. Fusion needs ranks
+ * only, so the legs' incomparable scores never meet.
+ * <p>
+ * Each leg has its own time budget. A leg that times out or fails counts
+ * as empty and the page is flagged partial, so one slow backend degrades
+ * the results instead of the latency. A late leg is cancelled rather than
+ * left running: the lexical query carries the budget as its Postgres
+ * statement timeout, and the leg's thread is interrupted.
+ * <p>
+ * Hits are content summaries, so a page never reads the content bodies.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+class ContentSearchServiceImpl implements IContentSearchService {
+
+    // Damps the lead of the very first ranks; 60 is the usual choice
+    private static final int RRF_K = 60;
+
+    private static final Comparator<Map.Entry<String, Double>> FUSED_ORDER =
+        Map.Entry.<String, Double>comparingByValue()
+            .reversed()
+            .thenComparing(Map.Entry.comparingByKey());
+
+    private final ContentRepo contentRepo;
+    private final ContentMapper contentMapper;
+    private final ISuggestionService suggestionService;
+    private final PlatformTransactionManager transactionManager;
+
+    // Legs mostly wait on Postgres and Qdrant
+    private final ExecutorService legs = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("content-search-", 0).factory()
+    );
+
+    @Value("${vekku.content.search.candidates}")
+    private int candidates;
+
+    @Value("${vekku.content.search.lexical-timeout-ms}")
+    private long lexicalTimeoutMs;
+
+    @Value("${vekku.content.search.semantic-timeout-ms}")
+    private long semanticTimeoutMs;
+
+    private record Leg(String name, Future<List<String>> ids, long deadline) {}
+
+    @PreDestroy
+    void shutdown() {
+        legs.shutdownNow();
+    }
+
+    @Override
+    public ContentSearchPage search(
+        String userId,
+        String query,
+        String cursor,
+        int limit
+    ) {
+        if (!StringUtils.hasText(query)) {
+            return new ContentSearchPage(List.of(), null, false);
+        }
+        Optional<Map.Entry<String, Double>> after = Optional.ofNullable(cursor)
+            .filter(StringUtils::hasText)
+            .map(ContentSearchServiceImpl::decodeCursor);
+
+        Leg lexical = leg(
+            "lexical",
+            () -> lexicalSearch(userId, query),
+            lexicalTimeoutMs
+        );
+        Leg semantic = leg(
+            "semantic",
+            () ->
+                List.copyOf(
+                    suggestionService
+                        .searchContents(userId, query, candidates)
+                        .keySet()
+                ),
+            semanticTimeoutMs
+        );
+        List<String> lexicalIds = await(lexical);
+        List<String> semanticIds = await(semantic);
+        boolean partial = lexicalIds == null || semanticIds == null;
+
+        Map<String, Double> fused = new HashMap<>();
+        addRanks(fused, lexicalIds);
+        addRanks(fused, semanticIds);
+
+        List<Map.Entry<String, Double>> ranked = fused
+            .entrySet()
+            .stream()
+            .sorted(FUSED_ORDER)
+            .filter(entry ->
+                after.isEmpty() || FUSED_ORDER.compare(entry, after.get()) > 0
+            )
+            .toList();
+        // Pages end at the depth of the legs, and hold at least one hit
+        int pageSize = Math.clamp(limit, 1, candidates);
+        List<Map.Entry<String, Double>> page = ranked.subList(
+            0,
+            Math.min(pageSize, ranked.size())
+        );
+
+        // Vector hits of just-deleted contents find no row and drop out
+        Map<UUID, ContentSummary> rows = new HashMap<>();
+        if (!page.isEmpty()) {
+            contentRepo
+                .findSummariesOfUserByIds(
+                    userId,
+                    page.stream().map(e -> UUID.fromString(e.getKey())).toList()
+                )
+                .forEach(row -> rows.put(row.getId(), row));
+        }
+        List<ContentSearchHit> hits = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : page) {
+            ContentSummary row = rows.get(UUID.fromString(entry.getKey()));
+            if (row != null) {
+                hits.add(
+                    new ContentSearchHit(contentMapper.toSummaryDto(row), entry.getValue())
+                );
+            }
+        }
+
+        String nextCursor = ranked.size() > page.size()
+            ? encodeCursor(page.getLast())
+            : null;
+        return new ContentSearchPage(hits, nextCursor, partial);
+    }
+
+    /** The full-text query, cancelled by Postgres once its budget is spent */
+    private List<String> lexicalSearch(String userId, String query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            contentRepo.setLocalStatementTimeout(lexicalTimeoutMs);
+            return contentRepo.searchIds(userId, query, candidates);
+        });
+    }
+
+    private Leg leg(String name, Callable<List<String>> search, long timeoutMs) {
+        return new Leg(
+            name,
+            legs.submit(search),
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs)
+        );
+    }
+
+    /** @return the leg's ids, or null if it failed or ran out of time */
+    private List<String> await(Leg leg) {
+        try {
+            return leg.ids().get(
+                Math.max(0, leg.deadline() - System.nanoTime()),
+                TimeUnit.NANOSECONDS
+            );
+        } catch (TimeoutException e) {
+            leg.ids().cancel(true);
+            log.warn("Content search {} leg dropped: timed out", leg.name());
+        } catch (ExecutionException e) {
+            log.warn("Content search {} leg dropped: {}", leg.name(), e.getCause().toString());
+        } catch (InterruptedException e) {
+            leg.ids().cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static void addRanks(Map<String, Double> fused, List<String> ids) {
+        if (ids == null) {
+            return;
+        }
+        for (int rank = 0; rank < ids.size(); rank++) {
+            fused.merge(ids.get(rank), 1.0 / (RRF_K + rank + 1), Double::sum);
+        }
+    }
+
+    private static String encodeCursor(Map.Entry<String, Double> last) {
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                (last.getValue() + ":" + last.getKey()).getBytes(
+                    StandardCharsets.UTF_8
+                )
+            );
+    }
+
+    private static Map.Entry<String, Double> decodeCursor(String cursor) {
+        try {
+            String decoded = new String(
+                Base64.getUrlDecoder().decode(cursor),
+                StandardCharsets.UTF_8
+            );
+            int separator = decoded.indexOf(':');
+            return Map.entry(
+                decoded.substring(separator + 1),
+                Double.parseDouble(decoded.substring(0, separator))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+        }
+    }
+}
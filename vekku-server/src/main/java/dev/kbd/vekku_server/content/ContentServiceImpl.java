@@ -1,22 +1,58 @@
 package dev.kbd.vekku_server.content;
 
 import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDeleteResult;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentImportResult;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentPage;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentSummaryDTO;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentUploadResult;
 import dev.kbd.vekku_server.content.api.ContentDTOs.CreateContentRequest;
+import dev.kbd.vekku_server.content.api.ContentDTOs.DeleteContentsRequest;
 import dev.kbd.vekku_server.content.api.ContentDTOs.UpdateContentRequest;
+import dev.kbd.vekku_server.content.api.ContentEvents;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchCreatedEvent;
 import dev.kbd.vekku_server.content.api.ContentEvents.ContentCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUpdatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.TextEdit;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUploadedEvent;
 import dev.kbd.vekku_server.content.api.IContentService;
+import dev.kbd.vekku_server.infrastructure.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.CharacterCodingException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import javax.sql.DataSource;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
 
 @Service
 @RequiredArgsConstructor
@@ -26,8 +62,32 @@ class ContentServiceImpl implements IContentService {
     final ContentRepo contentRepo;
     final ContentMapper contentMapper;
     final IContentEventPublisher eventPublisher;
+    final EntityManager entityManager;
+    final DataSource dataSource;
+    final TransactionTemplate transactionTemplate;
+    final ObjectMapper objectMapper;
+
+    @Value("${vekku.content.upload.max-bytes}")
+    private long maxUploadBytes;
+
+    @Value("${vekku.content.import.batch-size}")
+    private int importBatchSize;
+
+    private static final int MAX_TITLE_LENGTH = 150;
+
+    // Fields a listing can be narrowed to with fields=
+    private static final Set<String> SUMMARY_FIELDS = Set.of(
+        "id",
+        "title",
+        "snippet",
+        "contentType",
+        "tags",
+        "createdAt",
+        "updatedAt"
+    );
 
     @Override
+    @Transactional
     public ContentDTO createContent(
         String userId,
         CreateContentRequest request
@@ -46,6 +106,7 @@ class ContentServiceImpl implements IContentService {
                 toSaveContent.getId().toString(),
                 toSaveContent.getUserId(),
                 toSaveContent.getContent(),
+                toSaveContent.getContentType(),
                 toSaveContent.getTags()
             )
         );
@@ -53,7 +114,174 @@ class ContentServiceImpl implements IContentService {
         return contentMapper.toDto(toSaveContent);
     }
 
+    /**
+     * Copies the body into the contents table with COPY, which takes it as
+     * a stream, unlike a bound statement parameter. The columns the COPY
+     * row leaves out are set by an update in the same transaction.
+     */
     @Override
+    public ContentUploadResult uploadContent(
+        String userId,
+        String title,
+        ContentType contentType,
+        Set<String> tags,
+        InputStream body
+    ) {
+        if (!StringUtils.hasText(title) || title.length() > MAX_TITLE_LENGTH) {
+            throw new IllegalArgumentException(
+                "Title must have 1 to " + MAX_TITLE_LENGTH + " characters"
+            );
+        }
+        if (contentType == null) {
+            throw new IllegalArgumentException("Content type is required");
+        }
+        UUID id = UUID.randomUUID();
+        ContentCopyRow row = new ContentCopyRow(
+            id,
+            title,
+            contentType,
+            userId,
+            LocalDateTime.now().truncatedTo(ChronoUnit.MICROS),
+            body,
+            maxUploadBytes
+        );
+        String contentHash = transactionTemplate.execute(status -> {
+            copy(row);
+            String hash = row.contentHash();
+            contentRepo.completeUpload(
+                id,
+                row.snippet(),
+                tags == null ? Set.of() : tags
+            );
+            eventPublisher.publishContentUploaded(
+                new ContentUploadedEvent(
+                    id.toString(),
+                    userId,
+                    contentType,
+                    hash,
+                    row.size()
+                )
+            );
+            return hash;
+        });
+        log.info("Stored {} uploaded bytes as content {}", row.size(), id);
+        return new ContentUploadResult(id, row.size(), contentHash);
+    }
+
+    private void copy(ContentCopyRow row) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            connection
+                .unwrap(PGConnection.class)
+                .getCopyAPI()
+                .copyIn(
+                    "COPY contents (" + ContentCopyRow.COLUMNS + ") FROM STDIN",
+                    row
+                );
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Content must be UTF-8 text", e);
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Failed to store uploaded content", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Parses one record at a time and keeps one batch in memory. Each batch
+     * is inserted with JDBC batching in its own transaction, then announced
+     * with a single event. Ids are generated in memory on persist, so no
+     * insert waits on the database for its key.
+     */
+    @Override
+    public ContentImportResult importContents(String userId, InputStream body) {
+        List<UUID> ids = new ArrayList<>();
+        List<CreateContentRequest> batch = new ArrayList<>(importBatchSize);
+        try {
+            // Reads both a root-level sequence (NDJSON) and a JSON array
+            MappingIterator<CreateContentRequest> requests = objectMapper
+                .readerFor(CreateContentRequest.class)
+                .readValues(body);
+            while (requests.hasNextValue()) {
+                CreateContentRequest request = requests.nextValue();
+                validateImported(request, ids.size() + batch.size());
+                batch.add(request);
+                if (batch.size() == importBatchSize) {
+                    ids.addAll(importBatch(userId, batch));
+                    batch.clear();
+                }
+            }
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException(
+                "Malformed record after " + (ids.size() + batch.size()) +
+                " records, " + ids.size() + " imported: " + e.getOriginalMessage()
+            );
+        }
+        if (!batch.isEmpty()) {
+            ids.addAll(importBatch(userId, batch));
+        }
+        return new ContentImportResult(ids.size(), ids);
+    }
+
+    private List<UUID> importBatch(
+        String userId,
+        List<CreateContentRequest> batch
+    ) {
+        List<ContentEntity> saved = transactionTemplate.execute(status -> {
+            List<ContentEntity> contents = new ArrayList<>(batch.size());
+            for (CreateContentRequest request : batch) {
+                ContentEntity content = ContentEntity.builder()
+                    .userId(userId)
+                    .content(request.content())
+                    .title(request.title())
+                    .contentType(request.contentType())
+                    .tags(
+                        request.tags() == null
+                            ? new HashSet<>()
+                            : new HashSet<>(request.tags())
+                    )
+                    .build();
+                entityManager.persist(content);
+                contents.add(content);
+            }
+            eventPublisher.publishContentBatchCreated(
+                new ContentBatchCreatedEvent(
+                    userId,
+                    contents.stream().map(content -> content.getId().toString()).toList()
+                )
+            );
+            // Sends the inserts as JDBC batches and lets go of the entities
+            entityManager.flush();
+            entityManager.clear();
+            return contents;
+        });
+        return saved.stream().map(ContentEntity::getId).toList();
+    }
+
+    private static void validateImported(CreateContentRequest request, int record) {
+        String problem = null;
+        if (request == null) {
+            problem = "is null";
+        } else if (
+            !StringUtils.hasText(request.title()) ||
+            request.title().length() > MAX_TITLE_LENGTH
+        ) {
+            problem = "title must have 1 to " + MAX_TITLE_LENGTH + " characters";
+        } else if (request.content() == null) {
+            problem = "content is required";
+        } else if (request.contentType() == null) {
+            problem = "contentType is required";
+        }
+        if (problem != null) {
+            throw new IllegalArgumentException(
+                "Record " + record + " " + problem + "; records before it in " +
+                "completed batches are imported"
+            );
+        }
+    }
+
+    @Override
+    @Transactional
     public ContentDTO updateContent(
         String userId,
         UpdateContentRequest request
@@ -71,6 +299,9 @@ class ContentServiceImpl implements IContentService {
             );
         }
 
+        String previousContent = existing.getContent();
+        ContentType previousContentType = existing.getContentType();
+
         if (StringUtils.hasText(request.updatedTitle())) {
             existing.setTitle(request.updatedTitle());
         }
@@ -91,27 +322,71 @@ class ContentServiceImpl implements IContentService {
 
         contentRepo.save(existing);
 
+        if (
+            !previousContent.equals(existing.getContent()) ||
+            previousContentType != existing.getContentType()
+        ) {
+            eventPublisher.publishContentUpdated(
+                new ContentUpdatedEvent(
+                    existing.getId().toString(),
+                    existing.getUserId(),
+                    ContentEvents.contentHash(previousContent, previousContentType),
+                    ContentEvents.contentHash(
+                        existing.getContent(),
+                        existing.getContentType()
+                    ),
+                    existing.getContentType(),
+                    TextEdit.of(previousContent, existing.getContent())
+                )
+            );
+        }
+
         return contentMapper.toDto(existing);
     }
 
     @Override
+    @Transactional
     public void deleteContent(String id, String userId) {
-        //validate userId
-        ContentEntity existing = contentRepo
-            .findById(UUID.fromString(id))
-            .orElse(null);
-        if (existing == null || !existing.getUserId().equals(userId)) {
+        // Only marks the row; ContentPurger removes it and publishes the event
+        int marked = contentRepo.markDeleted(userId, List.of(UUID.fromString(id)));
+        if (marked == 0) {
             throw new RuntimeException(
                 String.format(
-                    "Content with id {} not found for user {}",
+                    "Content with id %s not found for user %s",
                     id,
                     userId
                 )
             );
         }
+    }
 
-        //delete
-        contentRepo.delete(existing);
+    @Override
+    @Transactional
+    public ContentDeleteResult deleteContents(
+        String userId,
+        DeleteContentsRequest request
+    ) {
+        int marked;
+        if (request.ids() != null && !request.ids().isEmpty()) {
+            marked = contentRepo.markDeleted(userId, request.ids());
+        } else if (
+            request.contentType() == null &&
+            !StringUtils.hasText(request.tag()) &&
+            request.createdBefore() == null
+        ) {
+            throw new IllegalArgumentException(
+                "Give ids or at least one of contentType, tag and createdBefore"
+            );
+        } else {
+            marked = contentRepo.markDeletedMatching(
+                userId,
+                request.contentType() == null ? null : request.contentType().name(),
+                StringUtils.hasText(request.tag()) ? request.tag() : null,
+                request.createdBefore()
+            );
+        }
+        log.info("Marked {} contents of user {} deleted", marked, userId);
+        return new ContentDeleteResult(marked);
     }
 
     @Override
@@ -132,55 +407,233 @@ class ContentServiceImpl implements IContentService {
     }
 
     @Override
-    public List<ContentDTO> getContentsOfUser(
+    public List<ContentDTO> getContentsOfUserByIds(
+        Collection<String> ids,
+        String userId
+    ) {
+        return contentRepo
+            .findAllById(ids.stream().map(UUID::fromString).toList())
+            .stream()
+            .filter(content -> content.getUserId().equals(userId))
+            .map(contentMapper::toDto)
+            .toList();
+    }
+
+    @Override
+    public ContentPage getContentsOfUser(
         String userId,
         String cursor,
         int limit,
-        String direction
+        String direction,
+        Set<String> fields
     ) {
-        // Default direction to "next" (or DESC) if not specified
-        boolean isDirectionPrev = "prev".equalsIgnoreCase(direction);
-        Sort sort = Sort.by(
-            isDirectionPrev ? Sort.Direction.ASC : Sort.Direction.DESC,
-            "createdAt"
+        Set<String> selected = selectedFields(fields);
+        boolean isPrev = "prev".equalsIgnoreCase(direction);
+        KeysetCursor from = StringUtils.hasText(cursor)
+            ? KeysetCursor.decode(cursor)
+            : null;
+        // One extra row tells whether another page follows
+        PageRequest pageable = PageRequest.of(0, limit + 1);
+
+        List<ContentSummary> rows;
+        if (from == null) {
+            rows = isPrev
+                ? contentRepo.findByUserIdOrderByCreatedAtAscIdAsc(
+                      userId,
+                      pageable
+                  )
+                : contentRepo.findByUserIdOrderByCreatedAtDescIdDesc(
+                      userId,
+                      pageable
+                  );
+        } else {
+            rows = isPrev
+                ? contentRepo.findPageBefore(
+                      userId,
+                      from.createdAt(),
+                      from.id(),
+                      pageable
+                  )
+                : contentRepo.findPageAfter(
+                      userId,
+                      from.createdAt(),
+                      from.id(),
+                      pageable
+                  );
+        }
+        boolean hasMore = rows.size() > limit;
+        List<ContentSummary> page = new ArrayList<>(
+            rows.subList(0, Math.min(limit, rows.size()))
         );
-        PageRequest pageable = PageRequest.of(0, limit, sort);
+        if (isPrev) {
+            // Fetched nearest first, shown newest first
+            Collections.reverse(page);
+        }
 
-        Specification<ContentEntity> spec = Specification.where(
-            (root, query, cb) -> cb.equal(root.get("userId"), userId)
+        boolean hasNext = isPrev ? from != null : hasMore;
+        boolean hasPrev = isPrev ? hasMore : from != null;
+        return new ContentPage(
+            page.stream().map(row -> toSummaryDto(row, selected)).toList(),
+            hasNext && !page.isEmpty() ? cursorOf(page.getLast()) : null,
+            hasPrev && !page.isEmpty() ? cursorOf(page.getFirst()) : null
         );
+    }
 
-        if (StringUtils.hasText(cursor)) {
-            try {
-                LocalDateTime cursorDateTime = LocalDateTime.parse(cursor);
-                if (isDirectionPrev) {
-                    spec = spec.and((root, query, cb) ->
-                        cb.greaterThan(root.get("createdAt"), cursorDateTime)
-                    );
-                } else {
-                    spec = spec.and((root, query, cb) ->
-                        cb.lessThan(root.get("createdAt"), cursorDateTime)
-                    );
-                }
-            } catch (Exception e) {
-                log.error("Invalid cursor format: {}", cursor, e);
-                return List.of();
+    @Override
+    public ContentPage getContentsByTags(
+        String userId,
+        Set<String> all,
+        Set<String> any,
+        Set<String> none,
+        String cursor,
+        int limit,
+        Set<String> fields
+    ) {
+        Set<String> selected = selectedFields(fields);
+        String predicate = ContentTagFilter.predicate(all, any, none);
+        KeysetCursor from = StringUtils.hasText(cursor)
+            ? KeysetCursor.decode(cursor)
+            : null;
+
+        // One extra row tells whether another page follows
+        List<UUID> ids = from == null
+            ? contentRepo.findIdsByTags(userId, predicate, limit + 1)
+            : contentRepo.findIdsByTagsAfter(
+                  userId,
+                  predicate,
+                  from.createdAt(),
+                  from.id(),
+                  limit + 1
+              );
+        boolean hasMore = ids.size() > limit;
+        List<UUID> pageIds = ids.subList(0, Math.min(limit, ids.size()));
+
+        Map<UUID, ContentSummary> rows = new HashMap<>();
+        if (!pageIds.isEmpty()) {
+            contentRepo
+                .findSummariesByIds(pageIds)
+                .forEach(row -> rows.put(row.getId(), row));
+        }
+        // A row deleted in between drops out
+        List<ContentSummary> page = pageIds
+            .stream()
+            .map(rows::get)
+            .filter(Objects::nonNull)
+            .toList();
+        return new ContentPage(
+            page.stream().map(row -> toSummaryDto(row, selected)).toList(),
+            hasMore && !page.isEmpty() ? cursorOf(page.getLast()) : null,
+            null
+        );
+    }
+
+    private static String cursorOf(ContentSummary content) {
+        return new KeysetCursor(content.getCreatedAt(), content.getId()).encode();
+    }
+
+    /** All summary fields when none are asked for */
+    private static Set<String> selectedFields(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return SUMMARY_FIELDS;
+        }
+        for (String field : fields) {
+            if (!SUMMARY_FIELDS.contains(field)) {
+                throw new IllegalArgumentException(
+                    "Unknown field: " + field + ", expected one of " + SUMMARY_FIELDS
+                );
             }
         }
+        return fields;
+    }
 
-        // This assumes ContentRepo extends JpaSpecificationExecutor<Content>
-        List<ContentEntity> contentList = contentRepo
-            .findAll(spec, pageable)
-            .getContent();
+    private static ContentSummaryDTO toSummaryDto(
+        ContentSummary row,
+        Set<String> fields
+    ) {
+        return new ContentSummaryDTO(
+            fields.contains("id") ? row.getId() : null,
+            fields.contains("title") ? row.getTitle() : null,
+            fields.contains("snippet") ? row.getSnippet() : null,
+            fields.contains("contentType") ? row.getContentType() : null,
+            fields.contains("tags") ? row.getTags() : null,
+            fields.contains("createdAt") ? row.getCreatedAt() : null,
+            fields.contains("updatedAt") ? row.getUpdatedAt() : null
+        );
+    }
 
-        if (isDirectionPrev) {
-            // Reverse the list for "prev" to maintain chronological order for the client
-            Collections.reverse(contentList);
+    @Override
+    public long countContents() {
+        return contentRepo.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamContentsOfUser(
+        String userId,
+        int batchSize,
+        Consumer<List<ContentDTO>> consumer
+    ) {
+        try (Stream<ContentEntity> contents = contentRepo.streamByUserId(userId)) {
+            consumeInBatches(contents, batchSize, consumer);
         }
+    }
 
-        return contentList
+    @Override
+    @Transactional(readOnly = true)
+    public List<ContentDTO> getAllContentsAfter(String afterId, int limit) {
+        UUID after = StringUtils.hasText(afterId)
+            ? UUID.fromString(afterId)
+            : new UUID(0, 0);
+        return contentRepo
+            .findPageByIdAfter(after, PageRequest.of(0, limit))
             .stream()
             .map(contentMapper::toDto)
-            .collect(Collectors.toList());
+            .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportContentsOfUser(
+        String userId,
+        int fetchSize,
+        Consumer<ContentDTO> consumer
+    ) {
+        try (
+            Stream<ContentEntity> contents = entityManager
+                .createQuery(
+                    "SELECT c FROM ContentEntity c WHERE c.userId = :userId " +
+                        "ORDER BY c.createdAt, c.id",
+                    ContentEntity.class
+                )
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+        ) {
+            contents.forEachOrdered(content -> {
+                consumer.accept(contentMapper.toDto(content));
+                entityManager.detach(content);
+            });
+        }
+    }
+
+    private void consumeInBatches(
+        Stream<ContentEntity> contents,
+        int batchSize,
+        Consumer<List<ContentDTO>> consumer
+    ) {
+        List<ContentDTO> batch = new ArrayList<>(batchSize);
+        contents.forEachOrdered(content -> {
+            batch.add(contentMapper.toDto(content));
+            if (batch.size() == batchSize) {
+                consumer.accept(List.copyOf(batch));
+                batch.clear();
+                // Already mapped, drop them from the persistence context
+                entityManager.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(List.copyOf(batch));
+        }
     }
 }
@@ -0,0 +1,35 @@
+package dev.kbd.vekku_server.content;
+
+import java.util.regex.Pattern;
+
+/** Short plain-text previews of content bodies, for listings */
+final class ContentSnippets {
+
+    static final int MAX_LENGTH = 200;
+
+    // Markdown markers that only add noise to a one-line preview
+    private static final Pattern MARKUP = Pattern.compile("[#*_>`~|]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ContentSnippets() {}
+
+    /** The start of the text on one line, cut at a word boundary */
+    static String of(String content) {
+        if (content == null) {
+            return null;
+        }
+        String text = WHITESPACE.matcher(
+            MARKUP.matcher(content).replaceAll(" ")
+        )
+            .replaceAll(" ")
+            .strip();
+        if (text.length() <= MAX_LENGTH) {
+            return text;
+        }
+        int cut = text.lastIndexOf(' ', MAX_LENGTH - 1);
+        if (cut < MAX_LENGTH / 2) {
+            cut = MAX_LENGTH - 1;
+        }
+        return text.substring(0, cut) + "…";
+    }
+}
@@ -0,0 +1,23 @@
+package dev.kbd.vekku_server.content;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/** Closed projection of {@link ContentEntity} without the content body */
+interface ContentSummary {
+    UUID getId();
+
+    String getTitle();
+
+    String getSnippet();
+
+    ContentType getContentType();
+
+    Set<String> getTags();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,81 @@
+package dev.kbd.vekku_server.content;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A boolean expression over a content's tags, rendered as one jsonpath
+ * predicate for {@code contents.tags @@ ...}. The GIN index
+ * {@code idx_contents_tags} (jsonb_path_ops) answers each
+ * {@code $[*] == "tag"} term and their {@code &&} and {@code ||}, so ALL and
+ * ANY terms find their rows in the index. NONE terms are negations, which
+ * no index can answer; they only filter the rows the other terms found, so
+ * a filter needs at least one ALL or ANY tag.
+ */
+final class ContentTagFilter {
+
+    // Keeps the predicate, and the index lookups it makes, small
+    static final int MAX_TAGS = 50;
+
+    private ContentTagFilter() {}
+
+    /**
+     * @param all tags a content must have every one of
+     * @param any tags a content must have at least one of
+     * @param none tags a content must have none of
+     * @throws IllegalArgumentException if neither ALL nor ANY tags are given
+     */
+    static String predicate(Set<String> all, Set<String> any, Set<String> none) {
+        all = orEmpty(all);
+        any = orEmpty(any);
+        none = orEmpty(none);
+        if (all.isEmpty() && any.isEmpty()) {
+            throw new IllegalArgumentException(
+                "Give at least one tag in all or any"
+            );
+        }
+        if (all.size() + any.size() + none.size() > MAX_TAGS) {
+            throw new IllegalArgumentException(
+                "A tag filter takes at most " + MAX_TAGS + " tags"
+            );
+        }
+
+        List<String> conjuncts = new ArrayList<>();
+        all.forEach(tag -> conjuncts.add(hasTag(tag)));
+        if (!any.isEmpty()) {
+            conjuncts.add(
+                any.stream()
+                    .map(ContentTagFilter::hasTag)
+                    .collect(Collectors.joining(" || ", "(", ")"))
+            );
+        }
+        none.forEach(tag -> conjuncts.add("!" + hasTag(tag)));
+        return String.join(" && ", conjuncts);
+    }
+
+    private static String hasTag(String tag) {
+        return "($[*] == " + literal(tag) + ")";
+    }
+
+    /** A jsonpath string literal, escaped like a JSON string */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private static Set<String> orEmpty(Set<String> tags) {
+        return tags == null ? Set.of() : tags;
+    }
+}
@@ -1,7 +1,19 @@
 package dev.kbd.vekku_server.content;
 
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchDeletedEvent;
 import dev.kbd.vekku_server.content.api.ContentEvents.ContentCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUpdatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUploadedEvent;
 
 public interface IContentEventPublisher {
     void publishContentCreated(ContentCreatedEvent event);
+
+    void publishContentBatchCreated(ContentBatchCreatedEvent event);
+
+    void publishContentUpdated(ContentUpdatedEvent event);
+
+    void publishContentBatchDeleted(ContentBatchDeletedEvent event);
+
+    void publishContentUploaded(ContentUploadedEvent event);
 }
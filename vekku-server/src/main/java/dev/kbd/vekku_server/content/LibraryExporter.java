@@ -0,0 +1,100 @@
+package dev.kbd.vekku_server.content;
+
+import dev.kbd.vekku_server.content.api.IContentService;
+import dev.kbd.vekku_server.tag.api.ITagContentService;
+import dev.kbd.vekku_server.tag.api.ITagService;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Writes a user's library as NDJSON: one {@code {"type": ..., "data": ...}}
+ * line per content, then per tag, then per tag link. Each kind is read
+ * through a forward-only cursor and every line goes to the output as soon
+ * as it is built, so memory use does not grow with the library.
+ * <p>
+ * All three are read in one read-only repeatable-read transaction, so the
+ * export is a consistent snapshot: no link points at a content or tag
+ * the export does not contain.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class LibraryExporter {
+
+    static final String CONTENT = "content";
+    static final String TAG = "tag";
+    static final String TAG_LINK = "tagLink";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final IContentService contentService;
+    private final ITagService tagService;
+    private final ITagContentService tagContentService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${vekku.content.export.fetch-size}")
+    private int fetchSize;
+
+    record Line(String type, Object data) {}
+
+    /** Writes the export and finishes, but does not close, the output */
+    void export(String userId, OutputStream output, boolean gzip)
+        throws IOException {
+        GZIPOutputStream compressed = gzip
+            ? new GZIPOutputStream(output, BUFFER_SIZE)
+            : null;
+        OutputStream out = new BufferedOutputStream(
+            gzip ? compressed : output,
+            BUFFER_SIZE
+        );
+
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        long[] lines = new long[1];
+        try {
+            snapshot.executeWithoutResult(status -> {
+                contentService.exportContentsOfUser(userId, fetchSize, content ->
+                    lines[0] += write(out, CONTENT, content)
+                );
+                tagService.exportTagsOfUser(userId, fetchSize, tag ->
+                    lines[0] += write(out, TAG, tag)
+                );
+                tagContentService.exportLinksOfUser(userId, fetchSize, link ->
+                    lines[0] += write(out, TAG_LINK, link)
+                );
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        output.flush();
+        log.info("Exported {} lines of the library of user {}", lines[0], userId);
+    }
+
+    private int write(OutputStream out, String type, Object data) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(new Line(type, data)));
+            out.write('\n');
+            return 1;
+        } catch (IOException e) {
+            // The client went away; stops the cursor and the transaction
+            throw new UncheckedIOException(e);
+        }
+    }
+}
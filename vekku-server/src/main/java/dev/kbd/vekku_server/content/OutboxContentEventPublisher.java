@@ -0,0 +1,65 @@
+package dev.kbd.vekku_server.content;
+
+import dev.kbd.vekku_server.content.api.ContentEvents;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchDeletedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUpdatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUploadedEvent;
+import dev.kbd.vekku_server.infrastructure.outbox.Outbox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class OutboxContentEventPublisher implements IContentEventPublisher {
+
+    private final Outbox outbox;
+
+    @Override
+    public void publishContentCreated(ContentCreatedEvent event) {
+        log.info(
+            "Queueing ContentCreatedEvent for content ID: {}",
+            event.contentId()
+        );
+        outbox.add(ContentEvents.CONTENT_CREATED, event);
+    }
+
+    @Override
+    public void publishContentBatchCreated(ContentBatchCreatedEvent event) {
+        log.info(
+            "Queueing ContentBatchCreatedEvent for {} contents",
+            event.contents().size()
+        );
+        outbox.add(ContentEvents.CONTENT_BATCH_CREATED, event);
+    }
+
+    @Override
+    public void publishContentUpdated(ContentUpdatedEvent event) {
+        log.info(
+            "Queueing ContentUpdatedEvent for content ID: {}",
+            event.contentId()
+        );
+        outbox.add(ContentEvents.CONTENT_UPDATED, event);
+    }
+
+    @Override
+    public void publishContentBatchDeleted(ContentBatchDeletedEvent event) {
+        log.info(
+            "Queueing ContentBatchDeletedEvent for {} contents",
+            event.contents().size()
+        );
+        outbox.add(ContentEvents.CONTENT_BATCH_DELETED, event);
+    }
+
+    @Override
+    public void publishContentUploaded(ContentUploadedEvent event) {
+        log.info(
+            "Queueing ContentUploadedEvent for content ID: {}",
+            event.contentId()
+        );
+        outbox.add(ContentEvents.CONTENT_UPLOADED, event);
+    }
+}
@@ -1,6 +1,8 @@
 package dev.kbd.vekku_server.content.api;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -10,6 +12,7 @@ public class ContentDTOs {
         UUID id,
         String title,
         String content,
+        ContentType contentType,
         String userId,
         LocalDateTime createdAt,
         LocalDateTime updatedAt,
@@ -32,6 +35,70 @@ public class ContentDTOs {
         Set<String> toAddTags
     ) {}
 
+    /**
+     * Result of a streamed upload; the body is not echoed back.
+     * @param size length of the body in bytes
+     * @param contentHash SHA-256 of the content type and body
+     */
+    public record ContentUploadResult(UUID id, long size, String contentHash) {}
+
+    /** @param ids ids of the imported contents, in input order */
+    public record ContentImportResult(int imported, List<UUID> ids) {}
+
+    /**
+     * Contents to delete: the listed ids, or else every content matching
+     * all of the given filters. At least one of them is required.
+     * @param createdBefore exclusive upper bound of the creation time
+     */
+    public record DeleteContentsRequest(
+        Set<UUID> ids,
+        ContentType contentType,
+        String tag,
+        LocalDateTime createdBefore
+    ) {}
+
+    /** @param deleted contents marked deleted; they are purged in the background */
+    public record ContentDeleteResult(int deleted) {}
+
+    /**
+     * A content without its body, for listings. Fields left out of a
+     * sparse fieldset are null and omitted from the JSON.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ContentSummaryDTO(
+        UUID id,
+        String title,
+        String snippet,
+        ContentType contentType,
+        Set<String> tags,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+    ) {}
+
+    /**
+     * One page of a keyset-paged list.
+     * @param nextCursor pass with direction "next" for the following page, null on the last one
+     * @param prevCursor pass with direction "prev" for the preceding page, null on the first one
+     */
+    public record ContentPage(
+        List<ContentSummaryDTO> content,
+        String nextCursor,
+        String prevCursor
+    ) {}
+
+    /** A search result: the content's summary, never its body */
+    public record ContentSearchHit(ContentSummaryDTO content, double score) {}
+
+    /**
+     * @param nextCursor pass as {@code cursor} for the next page, null on the last one
+     * @param partial true if a search leg timed out or failed and only the other one ranked
+     */
+    public record ContentSearchPage(
+        List<ContentSearchHit> hits,
+        String nextCursor,
+        boolean partial
+    ) {}
+
     public enum ContentType {
         PLAIN_TEXT,
         MARKDOWN,
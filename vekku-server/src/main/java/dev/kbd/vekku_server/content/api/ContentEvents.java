@@ -1,10 +1,17 @@
 package dev.kbd.vekku_server.content.api;
 
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.infrastructure.util.Hashing;
+import java.util.List;
 import java.util.Set;
 
 public class ContentEvents {
 
     public static final String CONTENT_CREATED = "content.created";
+    public static final String CONTENT_UPDATED = "content.updated";
+    public static final String CONTENT_BATCH_DELETED = "content.batch.deleted";
+    public static final String CONTENT_UPLOADED = "content.uploaded";
+    public static final String CONTENT_BATCH_CREATED = "content.batch.created";
 
     private ContentEvents() {}
 
@@ -12,6 +19,98 @@ public class ContentEvents {
         String contentId,
         String userId,
         String content,
+        ContentType contentType,
         Set<String> tags
     ) {}
+
+    /**
+     * Contents created together by a bulk import, to be processed in one
+     * pass. Carries no text, like {@link ContentUploadedEvent}; consumers
+     * read the bodies by id.
+     */
+    public record ContentBatchCreatedEvent(String userId, List<String> contentIds) {}
+
+    /**
+     * Carries no full text. Consumers read the current text by id and
+     * check it against {@code contentHash}; a mismatch means the content
+     * changed again, and a later event carries that change. {@code edit}
+     * turns the current text back into the previous one, for consumers
+     * that want the changed region. The hashes are SHA-256 of content type
+     * and text, as computed by {@link #contentHash}.
+     */
+    public record ContentUpdatedEvent(
+        String contentId,
+        String userId,
+        String previousContentHash,
+        String contentHash,
+        ContentType contentType,
+        TextEdit edit
+    ) {}
+
+    /**
+     * The one region in which two texts differ: {@code [start, end)} of the
+     * new text replaced {@code replaced} of the old one. Everything before
+     * and after it is the prefix and suffix both texts share, so an edit is
+     * as large as the change, not as the text.
+     */
+    public record TextEdit(int start, int end, String replaced) {
+
+        public static TextEdit of(String previous, String current) {
+            int limit = Math.min(previous.length(), current.length());
+            int prefix = 0;
+            while (prefix < limit && previous.charAt(prefix) == current.charAt(prefix)) {
+                prefix++;
+            }
+            // Never split a surrogate pair
+            if (prefix > 0 && Character.isHighSurrogate(current.charAt(prefix - 1))) {
+                prefix--;
+            }
+            int suffix = 0;
+            while (
+                suffix < limit - prefix &&
+                previous.charAt(previous.length() - 1 - suffix) ==
+                current.charAt(current.length() - 1 - suffix)
+            ) {
+                suffix++;
+            }
+            if (
+                suffix > 0 &&
+                Character.isLowSurrogate(current.charAt(current.length() - suffix))
+            ) {
+                suffix--;
+            }
+            return new TextEdit(
+                prefix,
+                current.length() - suffix,
+                previous.substring(prefix, previous.length() - suffix)
+            );
+        }
+
+        /** The previous text, given the current one */
+        public String previous(String current) {
+            return current.substring(0, start) + replaced + current.substring(end);
+        }
+    }
+
+    /**
+     * A content stored from a streamed upload. Carries no text; consumers
+     * read it from the content service by id.
+     */
+    public record ContentUploadedEvent(
+        String contentId,
+        String userId,
+        ContentType contentType,
+        String contentHash,
+        long size
+    ) {}
+
+    public static String contentHash(String content, ContentType contentType) {
+        return Hashing.sha256Hex(contentType.name(), content);
+    }
+
+    /** Carries no text; consumers drop what they derived from the content by id */
+    public record ContentDeletedEvent(String contentId, String userId) {}
+
+    /** Contents purged together, after they were deleted */
+    public record ContentBatchDeletedEvent(List<ContentDeletedEvent> contents) {}
 }
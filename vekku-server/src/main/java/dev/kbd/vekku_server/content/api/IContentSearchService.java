@@ -0,0 +1,18 @@
+package dev.kbd.vekku_server.content.api;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentSearchPage;
+
+public interface IContentSearchService {
+    /**
+     * Hybrid search: a full-text query and a semantic query run side by
+     * side and their rankings are fused. Pages are ordered by fused score,
+     * then id.
+     * @param cursor {@code nextCursor} of the previous page, or null for the first
+     */
+    ContentSearchPage search(
+        String userId,
+        String query,
+        String cursor,
+        int limit
+    );
+}
@@ -1,23 +1,125 @@
 package dev.kbd.vekku_server.content.api;
 
 import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDeleteResult;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentImportResult;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentPage;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentUploadResult;
 import dev.kbd.vekku_server.content.api.ContentDTOs.CreateContentRequest;
+import dev.kbd.vekku_server.content.api.ContentDTOs.DeleteContentsRequest;
 import dev.kbd.vekku_server.content.api.ContentDTOs.UpdateContentRequest;
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IContentService {
     ContentDTO createContent(String userId, CreateContentRequest request);
 
+    /**
+     * Stores a content whose body is read from a stream, without holding
+     * the body in memory.
+     * @param body UTF-8 text, read to the end but not closed
+     */
+    ContentUploadResult uploadContent(
+        String userId,
+        String title,
+        ContentType contentType,
+        Set<String> tags,
+        InputStream body
+    );
+
+    /**
+     * Creates contents from a stream of create requests, as NDJSON or as
+     * one JSON array, a batch per transaction. Batches committed before an
+     * invalid record stay imported.
+     */
+    ContentImportResult importContents(String userId, InputStream body);
+
     ContentDTO updateContent(String userId, UpdateContentRequest request);
 
+    /**
+     * Marks the content deleted. It disappears from reads at once; its row,
+     * tag links and suggestions are purged in the background.
+     */
     void deleteContent(String id, String userId);
 
+    /** Like {@link #deleteContent}, for many contents in one statement */
+    ContentDeleteResult deleteContents(String userId, DeleteContentsRequest request);
+
     ContentDTO getContentOfUser(String id, String userId);
 
-    List<ContentDTO> getContentsOfUser(
+    /**
+     * The user's contents among {@code ids}, with bodies, in one query and
+     * in no particular order. Missing and deleted contents are left out.
+     */
+    List<ContentDTO> getContentsOfUserByIds(Collection<String> ids, String userId);
+
+    /**
+     * Summaries of the user's contents, newest first, one keyset page at a
+     * time. Bodies are not loaded; use {@link #getContentOfUser} for those.
+     * @param cursor a cursor of the previous page, or null for the first
+     * @param fields summary fields to fill in, or empty for all of them
+     */
+    ContentPage getContentsOfUser(
         String userId,
         String cursor,
         int limit,
-        String direction
+        String direction,
+        Set<String> fields
     );
+
+    /**
+     * Summaries of the user's contents whose tags match a boolean
+     * expression, newest first, one keyset page at a time.
+     * @param all tags a content must have every one of
+     * @param any tags a content must have at least one of
+     * @param none tags a content must have none of; needs all or any as well
+     * @param cursor {@code nextCursor} of the previous page, or null for the first
+     */
+    ContentPage getContentsByTags(
+        String userId,
+        Set<String> all,
+        Set<String> any,
+        Set<String> none,
+        String cursor,
+        int limit,
+        Set<String> fields
+    );
+
+    long countContents();
+
+    /**
+     * Streams the contents of one user, handing them to the consumer in
+     * batches. Rows come through a server-side cursor and are detached after
+     * each batch, so memory stays flat however many contents there are.
+     */
+    void streamContentsOfUser(
+        String userId,
+        int batchSize,
+        Consumer<List<ContentDTO>> consumer
+    );
+
+    /**
+     * Hands the user's contents to the consumer one at a time, oldest first,
+     * through a forward-only cursor that fetches {@code fetchSize} rows per
+     * round trip. Each row is detached once consumed, so memory stays flat.
+     * Runs in the caller's transaction, or a read-only one of its own.
+     */
+    void exportContentsOfUser(
+        String userId,
+        int fetchSize,
+        Consumer<ContentDTO> consumer
+    );
+
+    /**
+     * Up to {@code limit} contents of every user with an id greater than
+     * {@code afterId}, in id order. Each call reads in a short transaction
+     * of its own, so a caller paging through every content holds no
+     * snapshot.
+     * @param afterId exclusive start, or null for the beginning
+     */
+    List<ContentDTO> getAllContentsAfter(String afterId, int limit);
 }
@@ -3,6 +3,7 @@ package dev.kbd.vekku_server.infrastructure.config;
 import dev.kbd.vekku_server.content.api.ContentEvents;
 import dev.kbd.vekku_server.tag.api.TagEvents;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
@@ -24,7 +25,21 @@ public class RabbitMQConfig {
     private String routingKey;
 
     public static final String CONTENT_CREATION_QUEUE = "content.creation.queue";
+    public static final String CONTENT_UPDATE_QUEUE = "content.update.queue";
+    public static final String CONTENT_BATCH_DELETION_QUEUE = "content.batch.deletion.queue";
+    public static final String CONTENT_UPLOAD_QUEUE = "content.upload.queue";
+    public static final String CONTENT_BATCH_CREATION_QUEUE = "content.batch.creation.queue";
     public static final String TAG_CREATION_QUEUE = "tag.creation.queue";
+    public static final String TAG_UPDATE_QUEUE = "tag.update.queue";
+    public static final String TAG_DELETION_QUEUE = "tag.deletion.queue";
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY =
+        "batchListenerContainerFactory";
+
+    @Value("${vekku.suggestion.batch.size}")
+    private int batchSize;
+
+    @Value("${vekku.suggestion.batch.receive-timeout-ms}")
+    private long batchReceiveTimeoutMs;
 
     @Bean
     public Queue queue() {
@@ -36,11 +51,51 @@ public class RabbitMQConfig {
         return new Queue(CONTENT_CREATION_QUEUE);
     }
 
+    @Bean
+    public Queue contentUpdateQueue() {
+        return new Queue(CONTENT_UPDATE_QUEUE);
+    }
+
+    @Bean
+    public Queue contentBatchDeletionQueue() {
+        return new Queue(CONTENT_BATCH_DELETION_QUEUE);
+    }
+
+    @Bean
+    public Queue contentUploadQueue() {
+        return new Queue(CONTENT_UPLOAD_QUEUE);
+    }
+
+    @Bean
+    public Queue contentBatchCreationQueue() {
+        return new Queue(CONTENT_BATCH_CREATION_QUEUE);
+    }
+
     @Bean
     public Queue tagCreationQueue() {
         return new Queue(TAG_CREATION_QUEUE);
     }
 
+    @Bean
+    public Queue tagUpdateQueue() {
+        return new Queue(TAG_UPDATE_QUEUE);
+    }
+
+    @Bean
+    public Queue tagDeletionQueue() {
+        return new Queue(TAG_DELETION_QUEUE);
+    }
+
+    /**
+     * This node's own queue of every content event, for state each node
+     * keeps in memory. Server-named and deleted with the node's connection,
+     * so nodes never compete for its messages.
+     */
+    @Bean
+    public Queue keywordStatsQueue() {
+        return new AnonymousQueue();
+    }
+
     @Bean
     public TopicExchange exchange() {
         return new TopicExchange(exchange);
@@ -56,16 +111,72 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(contentCreationQueue).to(exchange).with(ContentEvents.CONTENT_CREATED);
     }
 
+    @Bean
+    public Binding contentUpdateBinding(Queue contentUpdateQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(contentUpdateQueue).to(exchange).with(ContentEvents.CONTENT_UPDATED);
+    }
+
+    @Bean
+    public Binding contentBatchDeletionBinding(Queue contentBatchDeletionQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(contentBatchDeletionQueue).to(exchange).with(ContentEvents.CONTENT_BATCH_DELETED);
+    }
+
+    @Bean
+    public Binding contentUploadBinding(Queue contentUploadQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(contentUploadQueue).to(exchange).with(ContentEvents.CONTENT_UPLOADED);
+    }
+
+    @Bean
+    public Binding contentBatchCreationBinding(Queue contentBatchCreationQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(contentBatchCreationQueue).to(exchange).with(ContentEvents.CONTENT_BATCH_CREATED);
+    }
+
     @Bean
     public Binding tagCreationBinding(Queue tagCreationQueue, TopicExchange exchange) {
         return BindingBuilder.bind(tagCreationQueue).to(exchange).with(TagEvents.TAG_CREATED);
     }
 
+    @Bean
+    public Binding tagUpdateBinding(Queue tagUpdateQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(tagUpdateQueue).to(exchange).with(TagEvents.TAG_UPDATED);
+    }
+
+    @Bean
+    public Binding tagDeletionBinding(Queue tagDeletionQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(tagDeletionQueue).to(exchange).with(TagEvents.TAG_DELETED);
+    }
+
+    @Bean
+    public Binding keywordStatsBinding(Queue keywordStatsQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(keywordStatsQueue).to(exchange).with("content.#");
+    }
+
     @Bean
     public MessageConverter converter() {
         return new JacksonJsonMessageConverter();
     }
 
+    /**
+     * Listener factory for consumers that take a {@code List} of events.
+     * A batch is delivered once it holds {@code batchSize} messages or no new
+     * message arrived within {@code batchReceiveTimeoutMs}.
+     */
+    @Bean(name = BATCH_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+        ConnectionFactory connectionFactory
+    ) {
+        SimpleRabbitListenerContainerFactory factory =
+            new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(converter());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeoutMs);
+        return factory;
+    }
+
     @Bean
     public AmqpTemplate template(ConnectionFactory connectionFactory) {
         final RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
@@ -0,0 +1,44 @@
+package dev.kbd.vekku_server.infrastructure.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Transactional outbox: events are stored in the transaction of the change
+ * they announce and published by {@link OutboxRelay} once committed. An
+ * event is thus never lost to a broker outage nor sent for a rolled back
+ * change, and writers do not wait on the broker.
+ * <p>
+ * Delivery is at least once; a relay that fails after publishing sends its
+ * batch again.
+ * <p>
+ * Delivery is not ordered, not even for one aggregate. Relays on several
+ * nodes publish disjoint batches at once, a failed batch is sent again
+ * after later ones, and ids are allocated in blocks per node, so their
+ * order is not the commit order. Consumers therefore work from the current
+ * state rather than from the event: they read what the event names, skip
+ * events the state has moved past (e.g. by comparing content hashes) and
+ * leave out what is gone.
+ */
+@Component
+@RequiredArgsConstructor
+public class Outbox {
+
+    private final OutboxEventRepo outboxEventRepo;
+    private final ObjectMapper objectMapper;
+
+    /** Stores the event for publishing to the application exchange */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(String routingKey, Object event) {
+        outboxEventRepo.save(
+            OutboxEventEntity.builder()
+                .routingKey(routingKey)
+                .payloadType(event.getClass().getName())
+                .payload(objectMapper.writeValueAsString(event))
+                .build()
+        );
+    }
+}
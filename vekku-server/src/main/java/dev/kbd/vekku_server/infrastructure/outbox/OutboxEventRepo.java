@@ -0,0 +1,21 @@
+package dev.kbd.vekku_server.infrastructure.outbox;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+interface OutboxEventRepo extends JpaRepository<OutboxEventEntity, Long> {
+    /**
+     * Oldest events not held by another relay. Locked rows are skipped, not
+     * waited for, so relays on several nodes drain disjoint batches.
+     */
+    @Query(
+        value = "SELECT * FROM outbox_events ORDER BY id LIMIT :limit " +
+        "FOR UPDATE SKIP LOCKED",
+        nativeQuery = true
+    )
+    List<OutboxEventEntity> lockNextBatch(@Param("limit") int limit);
+}
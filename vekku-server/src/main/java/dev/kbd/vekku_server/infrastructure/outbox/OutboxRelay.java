@@ -0,0 +1,90 @@
+package dev.kbd.vekku_server.infrastructure.outbox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes outbox events in batches. A batch is locked, sent on one
+ * channel, confirmed by the broker as a whole and only then deleted, all
+ * in one transaction; a failure leaves the batch for the next run. Events
+ * are sent in id order within a batch only; see {@link Outbox} for what
+ * consumers may rely on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class OutboxRelay {
+
+    private final OutboxEventRepo outboxEventRepo;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${vekku.rabbitmq.exchange}")
+    private String exchange;
+
+    @Value("${vekku.outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${vekku.outbox.relay.confirm-timeout-ms}")
+    private long confirmTimeoutMs;
+
+    /** Drains full batches back to back until the outbox is empty */
+    @Scheduled(fixedDelayString = "${vekku.outbox.relay.interval-ms}")
+    void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (Exception e) {
+            log.warn("Outbox relay failed, retrying next run: {}", e.toString());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEventEntity> events = outboxEventRepo.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        rabbitTemplate.invoke(operations -> {
+            events.forEach(event ->
+                operations.send(exchange, event.getRoutingKey(), toMessage(event))
+            );
+            // One wait for the whole batch; throws on a nack or timeout
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+        outboxEventRepo.deleteAllByIdInBatch(
+            events.stream().map(OutboxEventEntity::getId).toList()
+        );
+        log.debug("Relayed {} outbox events", events.size());
+        return events.size();
+    }
+
+    /** The message the JSON converter would have built from the event */
+    private static Message toMessage(OutboxEventEntity event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setHeader(
+            AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+            event.getPayloadType()
+        );
+        return new Message(
+            event.getPayload().getBytes(StandardCharsets.UTF_8),
+            properties
+        );
+    }
+}
@@ -0,0 +1,174 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton: finds every occurrence of a fixed set of
+ * patterns in one pass over the text, in time linear in the text length
+ * plus the number of matches, however many patterns there are.
+ * <p>
+ * Matching is exact and case-sensitive; normalize patterns and text the
+ * same way before. Immutable once built, so it can be shared by threads.
+ */
+public final class AhoCorasick {
+
+    @FunctionalInterface
+    public interface MatchHandler {
+        /**
+         * @param pattern index of the pattern in the list it was built from
+         * @param end exclusive end of the occurrence in the text
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+
+    // Outgoing edges of each node, sorted by character for binary search
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    // Pattern ending at the node, or -1
+    private final int[] output;
+    // Nearest node on the fail chain with an output, or -1
+    private final int[] outputLink;
+    private final int[] patternLengths;
+
+    private AhoCorasick(
+        char[][] edgeChars,
+        int[][] edgeTargets,
+        int[] fail,
+        int[] output,
+        int[] outputLink,
+        int[] patternLengths
+    ) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.output = output;
+        this.outputLink = outputLink;
+        this.patternLengths = patternLengths;
+    }
+
+    /** Empty patterns never match; of duplicates, only the first reports */
+    public static AhoCorasick of(List<String> patterns) {
+        // 1. Trie
+        List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        edges.add(new TreeMap<>());
+        outputs.add(-1);
+        int[] patternLengths = new int[patterns.size()];
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            patternLengths[p] = pattern.length();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = edges.get(node).get(pattern.charAt(i));
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new TreeMap<>());
+                    outputs.add(-1);
+                    edges.get(node).put(pattern.charAt(i), next);
+                }
+                node = next;
+            }
+            if (outputs.get(node) < 0) {
+                outputs.set(node, p);
+            }
+        }
+
+        int nodes = edges.size();
+        char[][] edgeChars = new char[nodes][];
+        int[][] edgeTargets = new int[nodes][];
+        int[] output = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            TreeMap<Character, Integer> out = edges.get(node);
+            edgeChars[node] = new char[out.size()];
+            edgeTargets[node] = new int[out.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : out.entrySet()) {
+                edgeChars[node][i] = edge.getKey();
+                edgeTargets[node][i] = edge.getValue();
+                i++;
+            }
+            output[node] = outputs.get(node);
+        }
+
+        // 2. Fail and output links, breadth first so parents come first
+        int[] fail = new int[nodes];
+        int[] outputLink = new int[nodes];
+        outputLink[0] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            outputLink[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int f = fail[node];
+                int target;
+                while ((target = step(edgeChars, edgeTargets, f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = target < 0 ? 0 : target;
+                outputLink[child] = output[fail[child]] >= 0
+                    ? fail[child]
+                    : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new AhoCorasick(
+            edgeChars,
+            edgeTargets,
+            fail,
+            output,
+            outputLink,
+            patternLengths
+        );
+    }
+
+    public void scan(CharSequence text, MatchHandler handler) {
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = step(edgeChars, edgeTargets, node, c)) < 0 && node != 0) {
+                node = fail[node];
+            }
+            node = next < 0 ? 0 : next;
+            for (
+                int hit = output[node] >= 0 ? node : outputLink[node];
+                hit >= 0;
+                hit = outputLink[hit]
+            ) {
+                int pattern = output[hit];
+                handler.onMatch(pattern, i + 1 - patternLengths[pattern], i + 1);
+            }
+        }
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int node, char c) {
+        char[] chars = edgeChars[node];
+        int low = 0;
+        int high = chars.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chars[mid] < c) {
+                low = mid + 1;
+            } else if (chars[mid] > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[node][mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a list ordered by {@code (createdAt, id)}. The id breaks
+ * ties between rows created in the same instant, so no row is skipped or
+ * repeated across pages. Clients see it as an opaque string.
+ */
+public record KeysetCursor(LocalDateTime createdAt, UUID id) {
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                (createdAt.toString() + SEPARATOR + id).getBytes(
+                    StandardCharsets.UTF_8
+                )
+            );
+    }
+
+    /** @throws IllegalArgumentException if the cursor was not made by {@link #encode} */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String decoded = new String(
+                Base64.getUrlDecoder().decode(cursor),
+                StandardCharsets.UTF_8
+            );
+            int separator = decoded.indexOf(SEPARATOR);
+            return new KeysetCursor(
+                LocalDateTime.parse(decoded.substring(0, separator)),
+                UUID.fromString(decoded.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
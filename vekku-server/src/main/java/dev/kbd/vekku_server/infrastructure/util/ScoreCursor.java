@@ -0,0 +1,42 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a list ordered by {@code (score DESC, id)}. The id breaks
+ * ties between rows with the same score. The cursor carries both values,
+ * so a page can be read after its row is gone. Clients see it as an
+ * opaque string.
+ */
+public record ScoreCursor(double score, UUID id) {
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                (Double.toString(score) + SEPARATOR + id).getBytes(
+                    StandardCharsets.UTF_8
+                )
+            );
+    }
+
+    /** @throws IllegalArgumentException if the cursor was not made by {@link #encode} */
+    public static ScoreCursor decode(String cursor) {
+        try {
+            String decoded = new String(
+                Base64.getUrlDecoder().decode(cursor),
+                StandardCharsets.UTF_8
+            );
+            int separator = decoded.indexOf(SEPARATOR);
+            return new ScoreCursor(
+                Double.parseDouble(decoded.substring(0, separator)),
+                UUID.fromString(decoded.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.infrastructure.util.Hashing;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits content into overlapping windows that fit the embedding model's
+ * input, so long documents are scored on all of their text and not only on
+ * their opening paragraphs.
+ * <p>
+ * Window sizes are counted in whitespace-separated words, a conservative
+ * stand-in for model tokens. Markdown is first cut at headings, and small
+ * neighbouring sections are merged back together up to the window size.
+ */
+@Component
+class ContentChunker {
+
+    private static final Pattern WORD = Pattern.compile("\\S+");
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile(
+        "^#{1,6}\\s",
+        Pattern.MULTILINE
+    );
+
+    /**
+     * @param start offset of the first character in the content
+     * @param end offset after the last character in the content
+     * @param hash SHA-256 of the chunk text, stable across edits elsewhere
+     */
+    record Chunk(int index, int start, int end, String text, String hash) {}
+
+    @Value("${vekku.suggestion.chunking.max-words}")
+    private int maxWords;
+
+    @Value("${vekku.suggestion.chunking.overlap-words}")
+    private int overlapWords;
+
+    List<Chunk> chunk(String content, ContentType contentType) {
+        List<int[]> sections = contentType == ContentType.MARKDOWN
+            ? mergeSmallSections(content, markdownSections(content))
+            : List.of(new int[] { 0, content.length() });
+
+        List<Chunk> chunks = new ArrayList<>();
+        for (int[] section : sections) {
+            addWindows(content, section[0], section[1], chunks);
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk(0, 0, content.length(), content, hash(content)));
+        }
+        return chunks;
+    }
+
+    private List<int[]> markdownSections(String content) {
+        List<int[]> sections = new ArrayList<>();
+        Matcher heading = MARKDOWN_HEADING.matcher(content);
+        int start = 0;
+        while (heading.find()) {
+            if (heading.start() > start) {
+                sections.add(new int[] { start, heading.start() });
+            }
+            start = heading.start();
+        }
+        sections.add(new int[] { start, content.length() });
+        return sections;
+    }
+
+    private List<int[]> mergeSmallSections(String content, List<int[]> sections) {
+        List<int[]> merged = new ArrayList<>();
+        int[] current = null;
+        int currentWords = 0;
+        for (int[] section : sections) {
+            int words = countWords(content, section[0], section[1]);
+            if (current != null && currentWords + words <= maxWords) {
+                current[1] = section[1];
+                currentWords += words;
+            } else {
+                current = new int[] { section[0], section[1] };
+                currentWords = words;
+                merged.add(current);
+            }
+        }
+        return merged;
+    }
+
+    private void addWindows(
+        String content,
+        int sectionStart,
+        int sectionEnd,
+        List<Chunk> chunks
+    ) {
+        List<int[]> words = new ArrayList<>();
+        Matcher word = WORD.matcher(content).region(sectionStart, sectionEnd);
+        while (word.find()) {
+            words.add(new int[] { word.start(), word.end() });
+        }
+
+        int step = Math.max(1, maxWords - overlapWords);
+        for (int first = 0; first < words.size(); first += step) {
+            int last = Math.min(first + maxWords, words.size()) - 1;
+            int start = words.get(first)[0];
+            int end = words.get(last)[1];
+            String text = content.substring(start, end);
+            chunks.add(new Chunk(chunks.size(), start, end, text, hash(text)));
+            if (last == words.size() - 1) {
+                break;
+            }
+        }
+    }
+
+    private static int countWords(String content, int start, int end) {
+        Matcher word = WORD.matcher(content).region(start, end);
+        int count = 0;
+        while (word.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String hash(String text) {
+        return Hashing.sha256Hex(text);
+    }
+}
@@ -1,8 +1,22 @@
 package dev.kbd.vekku_server.suggestion;
 
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchCreatedEvent;
 import dev.kbd.vekku_server.content.api.ContentEvents.ContentCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchDeletedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentDeletedEvent;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.ContentEvents;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUpdatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUploadedEvent;
+import dev.kbd.vekku_server.content.api.IContentService;
 import dev.kbd.vekku_server.infrastructure.config.RabbitMQConfig;
 import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.ContentToSuggest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -14,29 +28,242 @@ import org.springframework.stereotype.Component;
 class ContentRabbitListener {
 
     private final ISuggestionService suggestionService;
+    private final IContentService contentService;
 
-    @RabbitListener(queues = RabbitMQConfig.CONTENT_CREATION_QUEUE)
-    public void handleContentCreatedEvent(ContentCreatedEvent event) {
+    /**
+     * Consumes content events in batches (see
+     * {@link RabbitMQConfig#BATCH_LISTENER_CONTAINER_FACTORY}) so that a whole
+     * batch is embedded and searched in one pass.
+     * <p>
+     * Events are not ordered (see {@link dev.kbd.vekku_server.infrastructure.outbox.Outbox}),
+     * so a creation may arrive after the content was changed or purged.
+     * Contents are thus indexed as stored now, read in one query per user,
+     * and gone ones are left out.
+     */
+    @RabbitListener(
+        queues = RabbitMQConfig.CONTENT_CREATION_QUEUE,
+        containerFactory = RabbitMQConfig.BATCH_LISTENER_CONTAINER_FACTORY
+    )
+    public void handleContentCreatedEvents(List<ContentCreatedEvent> events) {
+        log.info("Received batch of {} ContentCreatedEvents", events.size());
+
+        Map<String, List<String>> contentIdsByUser = events
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    ContentCreatedEvent::userId,
+                    LinkedHashMap::new,
+                    Collectors.mapping(ContentCreatedEvent::contentId, Collectors.toList())
+                )
+            );
+        List<ContentToSuggest> contents = new ArrayList<>(events.size());
+        contentIdsByUser.forEach((userId, contentIds) -> {
+            try {
+                contents.addAll(currentContents(userId, contentIds));
+            } catch (Exception e) {
+                log.error(
+                    "Error reading {} created contents of user {}",
+                    contentIds.size(),
+                    userId,
+                    e
+                );
+            }
+        });
+        createSuggestions(contents);
+    }
+
+    /**
+     * A bulk import arrives as one message naming its contents; their
+     * bodies are read in one query and handled like a consumed batch.
+     * Contents deleted since are left out.
+     */
+    @RabbitListener(queues = RabbitMQConfig.CONTENT_BATCH_CREATION_QUEUE)
+    public void handleContentBatchCreatedEvent(ContentBatchCreatedEvent event) {
+        log.info(
+            "Received ContentBatchCreatedEvent for {} contents",
+            event.contentIds().size()
+        );
+        try {
+            createSuggestions(currentContents(event.userId(), event.contentIds()));
+        } catch (Exception e) {
+            log.error(
+                "Error reading {} imported contents",
+                event.contentIds().size(),
+                e
+            );
+        }
+    }
+
+    /** The contents as stored now; deleted ones are left out */
+    private List<ContentToSuggest> currentContents(String userId, List<String> contentIds) {
+        return contentService
+            .getContentsOfUserByIds(contentIds, userId)
+            .stream()
+            .map(content ->
+                new ContentToSuggest(
+                    content.id().toString(),
+                    content.userId(),
+                    content.content(),
+                    content.contentType()
+                )
+            )
+            .toList();
+    }
+
+    private void createSuggestions(List<ContentToSuggest> contents) {
+        if (contents.isEmpty()) {
+            return;
+        }
+        try {
+            suggestionService.createSuggestionsForContents(
+                contents,
+                ISuggestionService.DEFAULT_THRESHOLD,
+                ISuggestionService.DEFAULT_COUNT
+            );
+            log.info("Suggestions created for {} contents", contents.size());
+        } catch (Exception e) {
+            log.error(
+                "Batch suggestion failed, retrying {} contents one by one",
+                contents.size(),
+                e
+            );
+            // One bad document must not cost the rest of the batch its suggestions
+            contents.forEach(this::createSuggestion);
+        }
+    }
+
+    /**
+     * Updates carry no text, so the current text is read back once here.
+     * An update the content has already moved past is skipped; the event
+     * of the later change refreshes the suggestions.
+     */
+    @RabbitListener(queues = RabbitMQConfig.CONTENT_UPDATE_QUEUE)
+    public void handleContentUpdatedEvent(ContentUpdatedEvent event) {
+        log.info("Received ContentUpdatedEvent for ID: {}", event.contentId());
+        try {
+            ContentDTO content = contentService.getContentOfUser(
+                event.contentId(),
+                event.userId()
+            );
+            String text = content.content();
+            if (
+                !ContentEvents.contentHash(text, content.contentType()).equals(
+                    event.contentHash()
+                )
+            ) {
+                log.info(
+                    "Content {} changed again since this update, skipping it",
+                    event.contentId()
+                );
+                return;
+            }
+            if (event.contentHash().equals(event.previousContentHash())) {
+                return;
+            }
+            suggestionService.updateSuggestionsForContent(
+                event.contentId(),
+                event.userId(),
+                text,
+                event.contentType(),
+                ISuggestionService.DEFAULT_THRESHOLD,
+                ISuggestionService.DEFAULT_COUNT
+            );
+        } catch (Exception e) {
+            log.error(
+                "Error refreshing suggestions for content ID: {}",
+                event.contentId(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Uploads carry no text, so it is read back once here. An upload the
+     * content has already moved past is skipped, like an update.
+     */
+    @RabbitListener(queues = RabbitMQConfig.CONTENT_UPLOAD_QUEUE)
+    public void handleContentUploadedEvent(ContentUploadedEvent event) {
         log.info(
-            "Received ContentCreatedEvent for content ID: {}, userId: {}",
+            "Received ContentUploadedEvent for ID: {} ({} bytes)",
             event.contentId(),
-            event.userId()
+            event.size()
         );
         try {
+            ContentDTO content = contentService.getContentOfUser(
+                event.contentId(),
+                event.userId()
+            );
+            if (
+                !ContentEvents.contentHash(content.content(), content.contentType()).equals(
+                    event.contentHash()
+                )
+            ) {
+                log.info(
+                    "Content {} changed since this upload, skipping it",
+                    event.contentId()
+                );
+                return;
+            }
             suggestionService.createSuggestionsForContent(
                 event.contentId(),
-                event.content(),
-                0.45, // Default threshold
-                10 // Default count
+                event.userId(),
+                content.content(),
+                event.contentType(),
+                ISuggestionService.DEFAULT_THRESHOLD,
+                ISuggestionService.DEFAULT_COUNT
+            );
+        } catch (Exception e) {
+            log.error(
+                "Error creating suggestions for uploaded content ID: {}",
+                event.contentId(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Purged contents lose their suggestions and chunk points in one go.
+     * Deletes of missing rows do nothing, so a redelivered batch, or one
+     * that failed half way, is safe to handle again. Keyword statistics are
+     * updated on every node by {@link KeywordStatsListener}.
+     */
+    @RabbitListener(queues = RabbitMQConfig.CONTENT_BATCH_DELETION_QUEUE)
+    public void handleContentBatchDeletedEvent(ContentBatchDeletedEvent event) {
+        log.info(
+            "Received ContentBatchDeletedEvent for {} contents",
+            event.contents().size()
+        );
+        try {
+            suggestionService.deleteSuggestionsOfContents(
+                event.contents().stream().map(ContentDeletedEvent::contentId).toList()
+            );
+        } catch (Exception e) {
+            log.error(
+                "Error removing {} purged contents",
+                event.contents().size(),
+                e
+            );
+        }
+    }
+
+    private void createSuggestion(ContentToSuggest content) {
+        try {
+            suggestionService.createSuggestionsForContent(
+                content.contentId(),
+                content.userId(),
+                content.content(),
+                content.contentType(),
+                ISuggestionService.DEFAULT_THRESHOLD,
+                ISuggestionService.DEFAULT_COUNT
             );
             log.info(
                 "Suggestions created for content ID: {}",
-                event.contentId()
+                content.contentId()
             );
         } catch (Exception e) {
             log.error(
                 "Error creating suggestions for content ID: {}",
-                event.contentId(),
+                content.contentId(),
                 e
             );
         }
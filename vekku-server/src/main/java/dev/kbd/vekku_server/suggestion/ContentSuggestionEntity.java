@@ -0,0 +1,63 @@
+package dev.kbd.vekku_server.suggestion;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+@Entity
+@Table(
+    name = "content_suggestions",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_content_suggestions_content_tag",
+        columnNames = { "fk_content_id", "fk_tag_id" }
+    ),
+    // Serves the keyset pages: one content, best score first
+    indexes = @Index(
+        name = "idx_content_suggestions_content_score",
+        columnList = "fk_content_id, score DESC, fk_tag_id"
+    )
+)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+class ContentSuggestionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, name = "fk_content_id")
+    private UUID contentId;
+
+    @Column(nullable = false, name = "fk_tag_id")
+    private UUID tagId;
+
+    @Column(nullable = false, name = "fk_user_id")
+    private String userId;
+
+    @Column(nullable = false)
+    private double score;
+
+    /** Embedding model the score was computed with */
+    @Column(nullable = false, name = "model_version")
+    private String modelVersion;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,74 @@
+package dev.kbd.vekku_server.suggestion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+interface ContentSuggestionRepo
+    extends JpaRepository<ContentSuggestionEntity, UUID> {
+    List<ContentSuggestionEntity> findByUserIdAndContentIdIn(
+        String userId,
+        Collection<UUID> contentIds
+    );
+
+    List<
+        ContentSuggestionEntity
+    > findByUserIdAndContentIdOrderByScoreDescTagIdAsc(
+        String userId,
+        UUID contentId,
+        Pageable pageable
+    );
+
+    List<
+        ContentSuggestionEntity
+    > findByUserIdAndContentIdOrderByScoreAscTagIdDesc(
+        String userId,
+        UUID contentId,
+        Pageable pageable
+    );
+
+    /** Rows ranked after (score, tagId) in descending score order */
+    @Query(
+        "SELECT s FROM ContentSuggestionEntity s WHERE s.userId = :userId AND s.contentId = :contentId " +
+            "AND (s.score < :score OR (s.score = :score AND s.tagId > :tagId)) " +
+            "ORDER BY s.score DESC, s.tagId ASC"
+    )
+    List<ContentSuggestionEntity> findPageAfter(
+        @Param("userId") String userId,
+        @Param("contentId") UUID contentId,
+        @Param("score") double score,
+        @Param("tagId") UUID tagId,
+        Pageable pageable
+    );
+
+    /** Rows ranked before (score, tagId), nearest first */
+    @Query(
+        "SELECT s FROM ContentSuggestionEntity s WHERE s.userId = :userId AND s.contentId = :contentId " +
+            "AND (s.score > :score OR (s.score = :score AND s.tagId < :tagId)) " +
+            "ORDER BY s.score ASC, s.tagId DESC"
+    )
+    List<ContentSuggestionEntity> findPageBefore(
+        @Param("userId") String userId,
+        @Param("contentId") UUID contentId,
+        @Param("score") double score,
+        @Param("tagId") UUID tagId,
+        Pageable pageable
+    );
+
+    @Modifying
+    @Query(
+        "DELETE FROM ContentSuggestionEntity s WHERE s.contentId IN :contentIds"
+    )
+    void deleteByContentIds(@Param("contentIds") Collection<UUID> contentIds);
+
+    @Modifying
+    @Query("DELETE FROM ContentSuggestionEntity s WHERE s.tagId = :tagId")
+    void deleteByTagId(@Param("tagId") UUID tagId);
+}
@@ -0,0 +1,235 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.infrastructure.util.ScoreCursor;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.SuggestionDTO;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.SuggestionPage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * Computed suggestions as plain relational rows. Reads are keyset pages
+ * over {@code (score DESC, tagId)}, served from the content/score index.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ContentSuggestionStore {
+
+    private final ContentSuggestionRepo contentSuggestionRepo;
+
+    @Value("${vekku.suggestion.model-version}")
+    private String modelVersion;
+
+    /**
+     * Replaces the stored suggestions of each content with the given scores,
+     * in one transaction.
+     * @param scoresByContent tag-id-to-score maps keyed by content id
+     * @param userIdByContent owner of each content
+     */
+    @Transactional
+    void replace(
+        Map<String, Map<String, Double>> scoresByContent,
+        Map<String, String> userIdByContent
+    ) {
+        List<ContentSuggestionEntity> rows = new ArrayList<>();
+        scoresByContent.forEach((contentId, scores) ->
+            scores.forEach((tagId, score) ->
+                rows.add(
+                    ContentSuggestionEntity.builder()
+                        .contentId(UUID.fromString(contentId))
+                        .tagId(UUID.fromString(tagId))
+                        .userId(userIdByContent.get(contentId))
+                        .score(score)
+                        .modelVersion(modelVersion)
+                        .build()
+                )
+            )
+        );
+        contentSuggestionRepo.deleteByContentIds(
+            scoresByContent.keySet().stream().map(UUID::fromString).toList()
+        );
+        contentSuggestionRepo.saveAll(rows);
+        log.debug(
+            "Stored {} suggestions for {} contents",
+            rows.size(),
+            scoresByContent.size()
+        );
+    }
+
+    /**
+     * Merges one tag's scores into the stored suggestions of many contents.
+     * A content keeps at most {@code count} suggestions, so the new tag only
+     * gets in where it beats the lowest one, which it then replaces.
+     * @param scoresByContent the tag's score keyed by content id
+     * @return number of contents whose suggestions changed
+     */
+    @Transactional
+    int mergeTag(
+        String tagId,
+        String userId,
+        Map<String, Double> scoresByContent,
+        int count
+    ) {
+        if (scoresByContent.isEmpty()) {
+            return 0;
+        }
+        UUID tag = UUID.fromString(tagId);
+        Map<UUID, List<ContentSuggestionEntity>> stored = contentSuggestionRepo
+            .findByUserIdAndContentIdIn(
+                userId,
+                scoresByContent.keySet().stream().map(UUID::fromString).toList()
+            )
+            .stream()
+            .collect(Collectors.groupingBy(ContentSuggestionEntity::getContentId));
+
+        List<ContentSuggestionEntity> toSave = new ArrayList<>();
+        List<ContentSuggestionEntity> toDelete = new ArrayList<>();
+        scoresByContent.forEach((contentId, score) -> {
+            UUID content = UUID.fromString(contentId);
+            List<ContentSuggestionEntity> rows = stored.getOrDefault(
+                content,
+                List.of()
+            );
+            Optional<ContentSuggestionEntity> existing = rows
+                .stream()
+                .filter(row -> row.getTagId().equals(tag))
+                .findFirst();
+            if (existing.isPresent()) {
+                if (score > existing.get().getScore()) {
+                    existing.get().setScore(score);
+                    toSave.add(existing.get());
+                }
+                return;
+            }
+            if (rows.size() >= count) {
+                ContentSuggestionEntity lowest = rows
+                    .stream()
+                    .min(Comparator.comparingDouble(ContentSuggestionEntity::getScore))
+                    .orElseThrow();
+                if (score <= lowest.getScore()) {
+                    return;
+                }
+                toDelete.add(lowest);
+            }
+            toSave.add(
+                ContentSuggestionEntity.builder()
+                    .contentId(content)
+                    .tagId(tag)
+                    .userId(userId)
+                    .score(score)
+                    .modelVersion(modelVersion)
+                    .build()
+            );
+        });
+        contentSuggestionRepo.deleteAll(toDelete);
+        contentSuggestionRepo.saveAll(toSave);
+        return toSave.size();
+    }
+
+    @Transactional
+    void deleteByContents(Collection<String> contentIds) {
+        contentSuggestionRepo.deleteByContentIds(
+            contentIds.stream().map(UUID::fromString).toList()
+        );
+    }
+
+    @Transactional
+    void deleteByTag(String tagId) {
+        contentSuggestionRepo.deleteByTagId(UUID.fromString(tagId));
+    }
+
+    /**
+     * @param fromCursor cursor of the page edge to continue from, as handed
+     * out in the previous page
+     * @param dir "next" for lower scores, "prev" for higher ones
+     */
+    @Transactional(readOnly = true)
+    SuggestionPage getPage(
+        String userId,
+        String contentId,
+        String fromCursor,
+        int limit,
+        String dir
+    ) {
+        boolean isPrev = "prev".equalsIgnoreCase(dir);
+        UUID content = UUID.fromString(contentId);
+        ScoreCursor from = StringUtils.hasText(fromCursor)
+            ? ScoreCursor.decode(fromCursor)
+            : null;
+        // One extra row tells whether another page follows
+        PageRequest pageable = PageRequest.of(0, limit + 1);
+
+        List<ContentSuggestionEntity> rows;
+        if (from == null) {
+            rows = isPrev
+                ? contentSuggestionRepo.findByUserIdAndContentIdOrderByScoreAscTagIdDesc(
+                      userId,
+                      content,
+                      pageable
+                  )
+                : contentSuggestionRepo.findByUserIdAndContentIdOrderByScoreDescTagIdAsc(
+                      userId,
+                      content,
+                      pageable
+                  );
+        } else {
+            rows = isPrev
+                ? contentSuggestionRepo.findPageBefore(
+                      userId,
+                      content,
+                      from.score(),
+                      from.id(),
+                      pageable
+                  )
+                : contentSuggestionRepo.findPageAfter(
+                      userId,
+                      content,
+                      from.score(),
+                      from.id(),
+                      pageable
+                  );
+        }
+        boolean hasMore = rows.size() > limit;
+        List<ContentSuggestionEntity> page = new ArrayList<>(
+            rows.subList(0, Math.min(limit, rows.size()))
+        );
+        if (isPrev) {
+            // Fetched nearest first, shown best first
+            Collections.reverse(page);
+        }
+
+        boolean hasNext = isPrev ? from != null : hasMore;
+        boolean hasPrev = isPrev ? hasMore : from != null;
+        return new SuggestionPage(
+            page.stream().map(ContentSuggestionStore::toDTO).toList(),
+            hasNext && !page.isEmpty() ? cursorOf(page.getLast()) : null,
+            hasPrev && !page.isEmpty() ? cursorOf(page.getFirst()) : null
+        );
+    }
+
+    private static String cursorOf(ContentSuggestionEntity suggestion) {
+        return new ScoreCursor(suggestion.getScore(), suggestion.getTagId()).encode();
+    }
+
+    private static SuggestionDTO toDTO(ContentSuggestionEntity entity) {
+        return new SuggestionDTO(
+            entity.getTagId().toString(),
+            entity.getScore(),
+            entity.getModelVersion()
+        );
+    }
+}
@@ -0,0 +1,145 @@
+package dev.kbd.vekku_server.suggestion;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dot products of a float32 query with stored rows, the inner loop of
+ * {@link TagVectorIndex} searches.
+ * <p>
+ * The kernels use the Vector API (jdk.incubator.vector) and process as many
+ * dimensions per instruction as the CPU's widest vector registers hold,
+ * with a scalar loop for the dimensions left over. The JVM needs
+ * {@code --add-modules jdk.incubator.vector} for that; without the module
+ * every product takes the scalar path, which gives the same results up to
+ * float rounding. {@code DotProductBenchmark} compares the two.
+ */
+final class DotProducts {
+
+    /** Whether the Vector API kernels are used */
+    static final boolean SIMD = ModuleLayer.boot()
+        .findModule("jdk.incubator.vector")
+        .isPresent();
+
+    private DotProducts() {}
+
+    /** Which kernels are used, for the startup log */
+    static String kernel() {
+        return SIMD ? Simd.describe() : "scalar";
+    }
+
+    /** Dot product of {@code query} with the row of {@code data} at {@code offset} */
+    static float dot(float[] query, float[] data, int offset, int length) {
+        return SIMD
+            ? Simd.dot(query, data, offset, length)
+            : scalarDot(query, data, offset, length);
+    }
+
+    /** Dot product of {@code query} with the int8 row of {@code codes} at {@code offset} */
+    static float dot(float[] query, byte[] codes, int offset, int length) {
+        return SIMD
+            ? Simd.dot(query, codes, offset, length)
+            : scalarDot(query, codes, offset, length);
+    }
+
+    /**
+     * Four independent accumulators keep the loop free of a serial
+     * dependency on one sum, which lets the JIT pipeline the multiplies.
+     */
+    static float scalarDot(float[] query, float[] data, int offset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += query[i] * data[offset + i];
+            s1 += query[i + 1] * data[offset + i + 1];
+            s2 += query[i + 2] * data[offset + i + 2];
+            s3 += query[i + 3] * data[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += query[i] * data[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static float scalarDot(float[] query, byte[] codes, int offset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += query[i] * codes[offset + i];
+            s1 += query[i + 1] * codes[offset + i + 1];
+            s2 += query[i + 2] * codes[offset + i + 2];
+            s3 += query[i + 3] * codes[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += query[i] * codes[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * The Vector API kernels. A nested class, so that its species are only
+     * initialized, and the incubator module only touched, when it is used.
+     */
+    static final class Simd {
+
+        private static final VectorSpecies<Float> FLOATS =
+            FloatVector.SPECIES_PREFERRED;
+        // At least as many lanes as FLOATS, and at least the smallest shape
+        private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(
+            byte.class,
+            VectorShape.forBitSize(Math.max(64, FLOATS.length() * Byte.SIZE))
+        );
+        // Float vectors each byte vector widens into
+        private static final int PARTS = BYTES.length() / FLOATS.length();
+
+        private Simd() {}
+
+        static String describe() {
+            return "Vector API, " + FLOATS.vectorBitSize() + "-bit";
+        }
+
+        static float dot(float[] query, float[] data, int offset, int length) {
+            FloatVector sum = FloatVector.zero(FLOATS);
+            int i = 0;
+            for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+                sum = FloatVector.fromArray(FLOATS, query, i).fma(
+                    FloatVector.fromArray(FLOATS, data, offset + i),
+                    sum
+                );
+            }
+            float result = sum.reduceLanes(VectorOperators.ADD);
+            for (; i < length; i++) {
+                result += query[i] * data[offset + i];
+            }
+            return result;
+        }
+
+        static float dot(float[] query, byte[] codes, int offset, int length) {
+            FloatVector sum = FloatVector.zero(FLOATS);
+            int i = 0;
+            for (int bound = BYTES.loopBound(length); i < bound; i += BYTES.length()) {
+                ByteVector row = ByteVector.fromArray(BYTES, codes, offset + i);
+                for (int part = 0; part < PARTS; part++) {
+                    FloatVector widened = (FloatVector) row.convertShape(
+                        VectorOperators.B2F,
+                        FLOATS,
+                        part
+                    );
+                    sum = FloatVector.fromArray(
+                        FLOATS,
+                        query,
+                        i + part * FLOATS.length()
+                    ).fma(widened, sum);
+                }
+            }
+            float result = sum.reduceLanes(VectorOperators.ADD);
+            for (; i < length; i++) {
+                result += query[i] * codes[offset + i];
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package dev.kbd.vekku_server.suggestion;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.kbd.vekku_server.infrastructure.util.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embeds texts through a two-tier cache so identical text is never embedded
+ * twice: a bounded in-memory Caffeine tier and an optional Postgres tier
+ * that survives restarts. Entries are keyed by a hash of the model id and
+ * the whitespace-normalized text. {@link EmbeddingCachePurger} bounds the
+ * Postgres tier.
+ */
+@Component
+@Slf4j
+class EmbeddingCache {
+
+    // A bucket is closed once its longest text would be this many times its shortest
+    private static final int MAX_BUCKET_LENGTH_RATIO = 2;
+
+    private final EmbeddingEngine embeddingEngine;
+    private final EmbeddingCacheRepo embeddingCacheRepo;
+    private final Cache<String, float[]> memoryTier;
+    private final String modelId;
+    private final boolean persistentEnabled;
+    private final int maxBatchSize;
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+
+    EmbeddingCache(
+        EmbeddingEngine embeddingEngine,
+        EmbeddingCacheRepo embeddingCacheRepo,
+        MeterRegistry meterRegistry,
+        @Value("${vekku.suggestion.embedding-cache.model-id}") String modelId,
+        @Value(
+            "${vekku.suggestion.embedding-cache.max-entries}"
+        ) long maxEntries,
+        @Value(
+            "${vekku.suggestion.embedding-cache.persistent.enabled}"
+        ) boolean persistentEnabled,
+        @Value("${vekku.suggestion.embedding.max-batch-size}") int maxBatchSize
+    ) {
+        this.maxBatchSize = maxBatchSize;
+        this.embeddingEngine = embeddingEngine;
+        this.embeddingCacheRepo = embeddingCacheRepo;
+        this.modelId = modelId;
+        this.persistentEnabled = persistentEnabled;
+        this.memoryTier = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .recordStats()
+            .build();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions and cache.size
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryTier, "embeddings");
+        this.persistentHits = meterRegistry.counter(
+            "vekku.embedding.cache.persistent",
+            "result",
+            "hit"
+        );
+        this.persistentMisses = meterRegistry.counter(
+            "vekku.embedding.cache.persistent",
+            "result",
+            "miss"
+        );
+    }
+
+    float[] embed(String text) {
+        return embedAll(List.of(text)).get(0);
+    }
+
+    /**
+     * Returns one vector per text, in order. Only texts missing from both
+     * tiers reach the model, and duplicates within the call are embedded once.
+     */
+    List<float[]> embedAll(List<String> texts) {
+        List<String> keys = texts.stream().map(this::keyOf).toList();
+
+        // 1. In-memory tier
+        Map<String, float[]> found = new HashMap<>(
+            memoryTier.getAllPresent(keys)
+        );
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!found.containsKey(keys.get(i))) {
+                missing.putIfAbsent(keys.get(i), texts.get(i));
+            }
+        }
+
+        // 2. Persistent tier
+        if (persistentEnabled && !missing.isEmpty()) {
+            for (EmbeddingCacheEntity entity : embeddingCacheRepo.findAllById(
+                missing.keySet()
+            )) {
+                float[] vector = fromBytes(entity.getVector());
+                found.put(entity.getCacheKey(), vector);
+                memoryTier.put(entity.getCacheKey(), vector);
+                missing.remove(entity.getCacheKey());
+                persistentHits.increment();
+            }
+            persistentMisses.increment(missing.size());
+        }
+
+        // 3. Model, for whatever is left
+        if (!missing.isEmpty()) {
+            List<String> missingKeys = new ArrayList<>(missing.keySet());
+            List<float[]> vectors = embedGroupedByLength(
+                new ArrayList<>(missing.values())
+            );
+            List<EmbeddingCacheEntity> toPersist = new ArrayList<>();
+            for (int i = 0; i < missingKeys.size(); i++) {
+                found.put(missingKeys.get(i), vectors.get(i));
+                memoryTier.put(missingKeys.get(i), vectors.get(i));
+                if (persistentEnabled) {
+                    toPersist.add(
+                        EmbeddingCacheEntity.builder()
+                            .cacheKey(missingKeys.get(i))
+                            .modelId(modelId)
+                            .vector(toBytes(vectors.get(i)))
+                            .build()
+                    );
+                }
+            }
+            persistQuietly(toPersist);
+            log.debug(
+                "Embedded {} of {} texts, rest served from cache",
+                missingKeys.size(),
+                texts.size()
+            );
+        }
+
+        return keys.stream().map(found::get).toList();
+    }
+
+    private void persistQuietly(List<EmbeddingCacheEntity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        try {
+            embeddingCacheRepo.insertAllIfAbsent(entities);
+        } catch (Exception e) {
+            // The persistent tier is an optimisation, never a reason to fail
+            log.warn("Could not persist embeddings: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Embeds texts in buckets of similar length so that short texts are not
+     * padded up to the longest text of the whole batch. Buckets are capped at
+     * {@code maxBatchSize} texts and run in parallel on the
+     * {@link EmbeddingEngine} pool. Order is preserved.
+     */
+    private List<float[]> embedGroupedByLength(List<String> texts) {
+        List<Integer> order = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> texts.get(i).length()));
+
+        List<List<Integer>> buckets = new ArrayList<>();
+        List<Integer> bucket = new ArrayList<>();
+        int bucketMinLength = 0;
+        for (int index : order) {
+            int length = texts.get(index).length();
+            if (
+                bucket.size() >= maxBatchSize ||
+                (!bucket.isEmpty() &&
+                    length > Math.max(1, bucketMinLength) * MAX_BUCKET_LENGTH_RATIO)
+            ) {
+                buckets.add(bucket);
+                bucket = new ArrayList<>();
+            }
+            if (bucket.isEmpty()) {
+                bucketMinLength = length;
+            }
+            bucket.add(index);
+        }
+        if (!bucket.isEmpty()) {
+            buckets.add(bucket);
+        }
+
+        List<CompletableFuture<List<float[]>>> embedded = buckets
+            .stream()
+            .map(b -> embeddingEngine.submit(b.stream().map(texts::get).toList()))
+            .toList();
+
+        float[][] vectors = new float[texts.size()][];
+        try {
+            for (int b = 0; b < buckets.size(); b++) {
+                List<float[]> bucketVectors = embedded.get(b).join();
+                for (int i = 0; i < buckets.get(b).size(); i++) {
+                    vectors[buckets.get(b).get(i)] = bucketVectors.get(i);
+                }
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                ? cause
+                : new RuntimeException("Embedding failed", e.getCause());
+        }
+        return List.of(vectors);
+    }
+
+    private String keyOf(String text) {
+        return Hashing.sha256Hex(modelId, text.strip().replaceAll("\\s+", " "));
+    }
+
+    private static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(
+            vector.length * Float.BYTES
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] fromBytes(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asFloatBuffer()
+            .get(vector);
+        return vector;
+    }
+}
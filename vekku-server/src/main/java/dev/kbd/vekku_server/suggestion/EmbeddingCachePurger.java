@@ -0,0 +1,53 @@
+package dev.kbd.vekku_server.suggestion;
+
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounds the embedding_cache table. Entries of another model id are never
+ * read again, entries older than the time to live are dropped, and of the
+ * rest only the newest {@code max-entries} are kept. A dropped entry costs
+ * one inference the next time its text comes up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class EmbeddingCachePurger {
+
+    private final EmbeddingCacheRepo embeddingCacheRepo;
+
+    @Value("${vekku.suggestion.embedding-cache.model-id}")
+    private String modelId;
+
+    @Value("${vekku.suggestion.embedding-cache.persistent.ttl-days}")
+    private long ttlDays;
+
+    @Value("${vekku.suggestion.embedding-cache.persistent.max-entries}")
+    private long maxEntries;
+
+    @Scheduled(
+        fixedDelayString = "${vekku.suggestion.embedding-cache.persistent.purge-interval-ms}"
+    )
+    void purge() {
+        try {
+            int stale = embeddingCacheRepo.deleteStale(
+                modelId,
+                LocalDateTime.now().minusDays(ttlDays)
+            );
+            int overflow = embeddingCacheRepo.deleteBeyond(maxEntries);
+            if (stale + overflow > 0) {
+                log.info(
+                    "Purged {} stale and {} overflowing cached embeddings",
+                    stale,
+                    overflow
+                );
+            }
+        } catch (Exception e) {
+            log.warn("Embedding cache purge failed, retrying next run: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.kbd.vekku_server.suggestion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+interface EmbeddingCacheRepo extends JpaRepository<EmbeddingCacheEntity, String> {
+    /**
+     * Plain insert, without the select {@code save} runs first for an
+     * assigned id. A key another node stored meanwhile is left as it is.
+     */
+    @Modifying
+    @Query(
+        nativeQuery = true,
+        value = "INSERT INTO embedding_cache (cache_key, model_id, vector, created_at) " +
+            "VALUES (:cacheKey, :modelId, :vector, now()) " +
+            "ON CONFLICT (cache_key) DO NOTHING"
+    )
+    void insertIfAbsent(
+        @Param("cacheKey") String cacheKey,
+        @Param("modelId") String modelId,
+        @Param("vector") byte[] vector
+    );
+
+    @Transactional
+    default void insertAllIfAbsent(List<EmbeddingCacheEntity> entities) {
+        for (EmbeddingCacheEntity entity : entities) {
+            insertIfAbsent(entity.getCacheKey(), entity.getModelId(), entity.getVector());
+        }
+    }
+
+    /** Removes entries of other models, which are never read again, and old ones */
+    @Transactional
+    @Modifying
+    @Query(
+        nativeQuery = true,
+        value = "DELETE FROM embedding_cache WHERE model_id <> :modelId " +
+            "OR created_at IS NULL OR created_at < :cutoff"
+    )
+    int deleteStale(
+        @Param("modelId") String modelId,
+        @Param("cutoff") LocalDateTime cutoff
+    );
+
+    /** Removes all but the newest {@code maxEntries} entries */
+    @Transactional
+    @Modifying
+    @Query(
+        nativeQuery = true,
+        value = "DELETE FROM embedding_cache WHERE cache_key IN (" +
+            "SELECT cache_key FROM embedding_cache " +
+            "ORDER BY created_at DESC NULLS LAST OFFSET :maxEntries)"
+    )
+    int deleteBeyond(@Param("maxEntries") long maxEntries);
+}
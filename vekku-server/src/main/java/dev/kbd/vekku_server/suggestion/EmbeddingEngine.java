@@ -0,0 +1,129 @@
+package dev.kbd.vekku_server.suggestion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs every model inference on a fixed pool of embedding threads instead
+ * of on whichever listener or HTTP thread asked for it.
+ * <p>
+ * The pool bounds how many inferences share the ONNX session at once, and
+ * {@link OnnxEmbeddingModel} bounds the threads each of them uses. Work
+ * waits in a bounded queue; once that is full, submitters block until a
+ * slot frees up, so a burst slows its producers down instead of piling up
+ * memory. A warmup inference runs before the application starts consuming.
+ */
+@Component
+@Slf4j
+class EmbeddingEngine {
+
+    // One short and one long text, so both ends of the input shapes are initialized
+    private static final List<String> WARMUP_TEXTS = List.of(
+        "warmup",
+        "warmup ".repeat(200)
+    );
+
+    private final EmbeddingModel embeddingModel;
+    private final ThreadPoolExecutor executor;
+
+    EmbeddingEngine(
+        EmbeddingModel embeddingModel,
+        MeterRegistry meterRegistry,
+        @Value("${vekku.suggestion.embedding.engine.threads}") int threads,
+        @Value(
+            "${vekku.suggestion.embedding.engine.queue-capacity}"
+        ) int queueCapacity,
+        @Value(
+            "${vekku.suggestion.embedding.engine.submit-timeout-ms}"
+        ) long submitTimeoutMs
+    ) {
+        this.embeddingModel = embeddingModel;
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("embedding-"),
+            (task, pool) -> waitForSlot(task, pool, submitTimeoutMs)
+        );
+        // Exposes executor.active, executor.queued, executor.completed, ...
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "embedding");
+    }
+
+    @PostConstruct
+    void warmup() {
+        long start = System.nanoTime();
+        try {
+            embed(WARMUP_TEXTS);
+            log.info(
+                "Embedding model warmed up in {} ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            );
+        } catch (Exception e) {
+            log.warn("Embedding warmup failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Embeds the texts on the engine pool, without blocking the caller */
+    CompletableFuture<List<float[]>> submit(List<String> texts) {
+        return CompletableFuture.supplyAsync(
+            () -> embeddingModel.embed(texts),
+            executor
+        );
+    }
+
+    /** Embeds the texts on the engine pool and waits for the result */
+    List<float[]> embed(List<String> texts) {
+        try {
+            return submit(texts).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                ? cause
+                : new RuntimeException("Embedding failed", e.getCause());
+        }
+    }
+
+    /** Backpressure: block the submitter until the queue has room */
+    private static void waitForSlot(
+        Runnable task,
+        ThreadPoolExecutor pool,
+        long timeoutMs
+    ) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Embedding engine is shut down");
+        }
+        try {
+            if (!pool.getQueue().offer(task, timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException(
+                    "Embedding queue still full after " + timeoutMs + " ms"
+                );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(
+                "Interrupted while waiting for the embedding queue",
+                e
+            );
+        }
+    }
+}
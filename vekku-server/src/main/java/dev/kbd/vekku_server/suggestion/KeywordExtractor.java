@@ -0,0 +1,322 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.content.api.IContentService;
+import dev.kbd.vekku_server.infrastructure.util.IntIntHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extracts keywords from a text without a model call or a corpus scan.
+ * <p>
+ * Candidates are RAKE-style phrases: runs of words split at stopwords and
+ * punctuation. A phrase scores the sum of the TF-IDF of its words, where
+ * the document frequencies are the user's own, kept in memory and updated
+ * as contents are created, updated and deleted. A user's statistics are
+ * built by streaming their contents once, on first use.
+ * <p>
+ * Each user interns their words to int ids and keeps an
+ * {@link IntIntHashMap} from word id to document count, plus the word ids
+ * each document was counted with. A changed document is counted again
+ * from its stored text and a removed one is taken out by id, so the
+ * statistics never depend on which earlier events were seen. An id is
+ * released once no document of the user has the word, so the tables only
+ * hold the user's current vocabulary.
+ * <p>
+ * Each user's entry is a future published before the load runs, so the
+ * load streams the corpus outside the map and concurrent callers share
+ * it, as in {@link TagVectorIndex}. A change that arrives while a load
+ * runs drops the entry, as the load may have read the document before it;
+ * the next call loads again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class KeywordExtractor {
+
+    private static final Pattern WORD = Pattern.compile(
+        "[\\p{L}\\p{N}][\\p{L}\\p{N}'_-]*"
+    );
+    // Anything of these between two words ends a phrase
+    private static final Pattern PHRASE_BREAK = Pattern.compile(
+        "[.,;:!?()\\[\\]{}\"<>|/\\\\\\n]"
+    );
+    private static final int MAX_PHRASE_WORDS = 4;
+    private static final int MIN_WORD_LENGTH = 2;
+    private static final int LOAD_BATCH_SIZE = 500;
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "about", "above", "after", "again", "against", "all", "also", "am",
+        "an", "and", "any", "are", "as", "at", "be", "because", "been", "before",
+        "being", "below", "between", "both", "but", "by", "can", "could", "did",
+        "do", "does", "doing", "down", "during", "each", "else", "few", "for",
+        "from", "further", "get", "got", "had", "has", "have", "having", "he",
+        "her", "here", "hers", "him", "his", "how", "however", "i", "if", "in",
+        "into", "is", "it", "its", "itself", "just", "let", "like", "may", "me",
+        "might", "more", "most", "much", "must", "my", "no", "nor", "not", "now",
+        "of", "off", "on", "once", "one", "only", "or", "other", "our", "ours",
+        "out", "over", "own", "same", "shall", "she", "should", "so", "some",
+        "such", "than", "that", "the", "their", "theirs", "them", "then",
+        "there", "these", "they", "this", "those", "through", "to", "too",
+        "under", "until", "up", "us", "use", "used", "using", "very", "was",
+        "we", "were", "what", "when", "where", "which", "while", "who", "whom",
+        "why", "will", "with", "would", "yet", "you", "your", "yours"
+    );
+
+    private final IContentService contentService;
+
+    private final Map<String, CompletableFuture<UserWordStats>> statsByUser =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Document frequencies of one user. Updates from listener threads and
+     * reads from request threads are serialized on the instance.
+     */
+    private static final class UserWordStats {
+
+        private final Map<String, Integer> wordIds = new HashMap<>();
+        // Word of each id, null where released; 0 is reserved by IntIntHashMap
+        private final List<String> words = new ArrayList<>(List.of(""));
+        private final ArrayDeque<Integer> releasedIds = new ArrayDeque<>();
+        private final IntIntHashMap documentFrequency = new IntIntHashMap(1024);
+        private final Map<String, int[]> wordIdsByDocument = new HashMap<>();
+
+        /** Counts the document with these words, in place of what it had */
+        synchronized void put(String documentId, Set<String> documentWords) {
+            int[] added = new int[documentWords.size()];
+            int i = 0;
+            for (String word : documentWords) {
+                Integer wordId = wordIds.get(word);
+                added[i++] = wordId == null ? intern(word) : wordId;
+            }
+            // Added first, so words the document keeps are never released
+            for (int wordId : added) {
+                documentFrequency.addTo(wordId, 1);
+            }
+            int[] removed = wordIdsByDocument.put(documentId, added);
+            if (removed != null) {
+                uncount(removed);
+            }
+        }
+
+        synchronized void remove(String documentId) {
+            int[] removed = wordIdsByDocument.remove(documentId);
+            if (removed != null) {
+                uncount(removed);
+            }
+        }
+
+        private void uncount(int[] documentWordIds) {
+            for (int wordId : documentWordIds) {
+                if (documentFrequency.addTo(wordId, -1) == 0) {
+                    release(wordId);
+                }
+            }
+        }
+
+        /** Smoothed idf, so words the user has never seen still score */
+        synchronized Map<String, Double> idf(Set<String> queryWords) {
+            Map<String, Double> idf = new HashMap<>();
+            for (String word : queryWords) {
+                Integer wordId = wordIds.get(word);
+                int df = wordId == null ? 0 : documentFrequency.get(wordId);
+                idf.put(
+                    word,
+                    Math.log((1.0 + wordIdsByDocument.size()) / (1.0 + df)) + 1
+                );
+            }
+            return idf;
+        }
+
+        private int intern(String word) {
+            Integer wordId = releasedIds.poll();
+            if (wordId == null) {
+                wordId = words.size();
+                words.add(word);
+            } else {
+                words.set(wordId, word);
+            }
+            wordIds.put(word, wordId);
+            return wordId;
+        }
+
+        private void release(int wordId) {
+            wordIds.remove(words.set(wordId, null));
+            releasedIds.push(wordId);
+        }
+    }
+
+    /** Best {@code count} keywords of the text, best first */
+    Set<String> keywords(String userId, String text, int count) {
+        List<List<String>> phrases = phrases(text);
+        if (phrases.isEmpty() || count <= 0) {
+            return Set.of();
+        }
+
+        Map<String, Integer> frequency = new HashMap<>();
+        int total = 0;
+        for (List<String> phrase : phrases) {
+            for (String word : phrase) {
+                frequency.merge(word, 1, Integer::sum);
+                total++;
+            }
+        }
+        Map<String, Double> idf = statsOf(userId).idf(frequency.keySet());
+
+        Map<String, Double> scores = new HashMap<>();
+        for (List<String> phrase : phrases) {
+            double score = 0;
+            for (String word : phrase) {
+                score += ((double) frequency.get(word) / total) * idf.get(word);
+            }
+            scores.putIfAbsent(String.join(" ", phrase), score);
+        }
+        return new LinkedHashSet<>(TagScores.top(scores, count).keySet());
+    }
+
+    /**
+     * Whether this node keeps statistics of the user, or is loading them.
+     * Changes of other users need not be read.
+     */
+    boolean tracks(String userId) {
+        return statsByUser.containsKey(userId);
+    }
+
+    /** Counts a created or changed content with its current text */
+    void putDocument(String userId, String contentId, String text) {
+        UserWordStats stats = loadedStats(userId);
+        // Not loaded: the next load reads the document from the database
+        if (stats != null) {
+            stats.put(contentId, distinctWords(text));
+        }
+    }
+
+    /** Safe to repeat: a content that is not counted is left alone */
+    void removeDocument(String userId, String contentId) {
+        UserWordStats stats = loadedStats(userId);
+        if (stats != null) {
+            stats.remove(contentId);
+        }
+    }
+
+    /** Drops the user's statistics, e.g. after a change could not be read */
+    void forget(String userId) {
+        statsByUser.remove(userId);
+    }
+
+    /** The user's statistics, loaded by this thread if no other got there first */
+    private UserWordStats statsOf(String userId) {
+        CompletableFuture<UserWordStats> entry = statsByUser.get(userId);
+        if (entry == null) {
+            CompletableFuture<UserWordStats> loading = new CompletableFuture<>();
+            entry = statsByUser.putIfAbsent(userId, loading);
+            if (entry == null) {
+                entry = loading;
+                try {
+                    loading.complete(load(userId));
+                } catch (RuntimeException e) {
+                    statsByUser.remove(userId, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        return entry.join();
+    }
+
+    /**
+     * The user's statistics if loaded. A load still running is dropped, as
+     * it may have read the changed document before the change.
+     */
+    private UserWordStats loadedStats(String userId) {
+        CompletableFuture<UserWordStats> entry = statsByUser.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isDone() && !entry.isCompletedExceptionally()) {
+            return entry.join();
+        }
+        statsByUser.remove(userId, entry);
+        return null;
+    }
+
+    private UserWordStats load(String userId) {
+        long start = System.nanoTime();
+        UserWordStats stats = new UserWordStats();
+        AtomicInteger documents = new AtomicInteger();
+        contentService.streamContentsOfUser(userId, LOAD_BATCH_SIZE, contents ->
+            contents.forEach(content -> {
+                stats.put(content.id().toString(), distinctWords(content.content()));
+                documents.incrementAndGet();
+            })
+        );
+        log.info(
+            "Loaded keyword statistics of user {} from {} contents in {} ms",
+            userId,
+            documents.get(),
+            (System.nanoTime() - start) / 1_000_000
+        );
+        return stats;
+    }
+
+    private static Set<String> distinctWords(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        phrases(text).forEach(words::addAll);
+        return words;
+    }
+
+    /** Candidate phrases: at most {@link #MAX_PHRASE_WORDS} non-stopwords in a row */
+    static List<List<String>> phrases(String text) {
+        List<List<String>> phrases = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return phrases;
+        }
+        List<String> current = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text);
+        int previousEnd = 0;
+        while (matcher.find()) {
+            String word = matcher.group().toLowerCase(Locale.ROOT);
+            boolean broken = PHRASE_BREAK.matcher(
+                text.subSequence(previousEnd, matcher.start())
+            ).find();
+            previousEnd = matcher.end();
+            if (broken || current.size() == MAX_PHRASE_WORDS) {
+                flush(current, phrases);
+            }
+            if (
+                word.length() < MIN_WORD_LENGTH ||
+                STOP_WORDS.contains(word) ||
+                isNumber(word)
+            ) {
+                flush(current, phrases);
+            } else {
+                current.add(word);
+            }
+        }
+        flush(current, phrases);
+        return phrases;
+    }
+
+    private static void flush(List<String> current, List<List<String>> phrases) {
+        if (!current.isEmpty()) {
+            phrases.add(List.copyOf(current));
+            current.clear();
+        }
+    }
+
+    private static boolean isNumber(String word) {
+        return word.chars().allMatch(Character::isDigit);
+    }
+}
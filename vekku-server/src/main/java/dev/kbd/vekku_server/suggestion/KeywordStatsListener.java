@@ -0,0 +1,101 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentBatchDeletedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentCreatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentDeletedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUpdatedEvent;
+import dev.kbd.vekku_server.content.api.ContentEvents.ContentUploadedEvent;
+import dev.kbd.vekku_server.content.api.IContentService;
+import dev.kbd.vekku_server.infrastructure.config.RabbitMQConfig;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitHandler;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this node's keyword statistics current. Every node keeps its own
+ * statistics, so content events reach each one on its own queue
+ * ({@link RabbitMQConfig#keywordStatsQueue()}) rather than the shared work
+ * queues.
+ * <p>
+ * Statistics follow the stored text, which is read back here, and not the
+ * event: a late, repeated or skipped event thus leaves them right. Only
+ * users whose statistics this node keeps are read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@RabbitListener(queues = "#{keywordStatsQueue.name}")
+class KeywordStatsListener {
+
+    private final KeywordExtractor keywordExtractor;
+    private final IContentService contentService;
+
+    @RabbitHandler
+    public void handleContentCreatedEvent(ContentCreatedEvent event) {
+        refresh(event.userId(), List.of(event.contentId()));
+    }
+
+    @RabbitHandler
+    public void handleContentBatchCreatedEvent(ContentBatchCreatedEvent event) {
+        refresh(event.userId(), event.contentIds());
+    }
+
+    @RabbitHandler
+    public void handleContentUpdatedEvent(ContentUpdatedEvent event) {
+        refresh(event.userId(), List.of(event.contentId()));
+    }
+
+    @RabbitHandler
+    public void handleContentUploadedEvent(ContentUploadedEvent event) {
+        refresh(event.userId(), List.of(event.contentId()));
+    }
+
+    @RabbitHandler
+    public void handleContentBatchDeletedEvent(ContentBatchDeletedEvent event) {
+        for (ContentDeletedEvent deleted : event.contents()) {
+            keywordExtractor.removeDocument(deleted.userId(), deleted.contentId());
+        }
+    }
+
+    /** Counts the contents as stored now; gone ones are taken out */
+    private void refresh(String userId, List<String> contentIds) {
+        if (!keywordExtractor.tracks(userId)) {
+            return;
+        }
+        try {
+            Map<String, String> textById = contentService
+                .getContentsOfUserByIds(contentIds, userId)
+                .stream()
+                .collect(
+                    Collectors.toMap(
+                        content -> content.id().toString(),
+                        ContentDTO::content
+                    )
+                );
+            for (String contentId : contentIds) {
+                String text = textById.get(contentId);
+                if (text == null) {
+                    keywordExtractor.removeDocument(userId, contentId);
+                } else {
+                    keywordExtractor.putDocument(userId, contentId, text);
+                }
+            }
+        } catch (Exception e) {
+            // Statistics that missed a change are loaded again on next use
+            log.error(
+                "Error reading {} changed contents of user {}, dropping their keyword statistics",
+                contentIds.size(),
+                userId,
+                e
+            );
+            keywordExtractor.forget(userId);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dev.kbd.vekku_server.suggestion;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.AbstractEmbeddingModel;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.transformers.ResourceCacheService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sentence embeddings from an ONNX model run in process. It runs the same
+ * model as Spring AI's TransformersEmbeddingModel, which it replaces (see
+ * {@code spring.ai.model.embedding}): tokenize, run, and mean-pool the last
+ * hidden state over the attention mask.
+ * <p>
+ * That model opens its session with default options, so each inference
+ * fans out over every core, and {@link EmbeddingEngine}'s threads multiply
+ * that. This session's intra-op and inter-op thread pools are sized by
+ * {@code vekku.suggestion.embedding.onnx.*}, so engine threads times
+ * intra-op threads can be kept within the cores.
+ */
+@Component
+@Slf4j
+class OnnxEmbeddingModel extends AbstractEmbeddingModel implements DisposableBean {
+
+    private static final String OUTPUT_NAME = "last_hidden_state";
+
+    private final HuggingFaceTokenizer tokenizer;
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+
+    OnnxEmbeddingModel(
+        @Value("${spring.ai.embedding.transformer.onnx.model-uri}") String modelUri,
+        @Value("${spring.ai.embedding.transformer.tokenizer-uri}") String tokenizerUri,
+        @Value(
+            "${vekku.suggestion.embedding.onnx.intra-op-threads}"
+        ) int intraOpThreads,
+        @Value(
+            "${vekku.suggestion.embedding.onnx.inter-op-threads}"
+        ) int interOpThreads
+    ) throws IOException, OrtException {
+        // Downloads once into a local cache directory, as Spring AI does
+        ResourceCacheService resources = new ResourceCacheService();
+        try (
+            InputStream tokenizerJson = resources
+                .getCachedResource(tokenizerUri)
+                .getInputStream()
+        ) {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(tokenizerJson, Map.of());
+        }
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            // 0 leaves the choice to ONNX Runtime: every core for intra-op
+            options.setIntraOpNumThreads(intraOpThreads);
+            options.setInterOpNumThreads(interOpThreads);
+            this.session = environment.createSession(
+                resources.getCachedResource(modelUri).getContentAsByteArray(),
+                options
+            );
+        }
+        log.info(
+            "Embedding model loaded with {} intra-op and {} inter-op threads",
+            intraOpThreads,
+            interOpThreads
+        );
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        if (texts.isEmpty()) {
+            return new EmbeddingResponse(embeddings);
+        }
+        float[][] vectors;
+        try {
+            vectors = infer(texts);
+        } catch (OrtException e) {
+            throw new RuntimeException("Embedding inference failed", e);
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.NONE));
+    }
+
+    @Override
+    public void destroy() throws OrtException {
+        session.close();
+        tokenizer.close();
+    }
+
+    private float[][] infer(List<String> texts) throws OrtException {
+        Encoding[] encodings = tokenizer.batchEncode(texts);
+        int length = 0;
+        for (Encoding encoding : encodings) {
+            length = Math.max(length, encoding.getIds().length);
+        }
+        // Padded to the longest text; padding has id 0 and is masked out
+        long[][] inputIds = new long[encodings.length][length];
+        long[][] attentionMask = new long[encodings.length][length];
+        long[][] tokenTypeIds = new long[encodings.length][length];
+        for (int i = 0; i < encodings.length; i++) {
+            copy(encodings[i].getIds(), inputIds[i]);
+            copy(encodings[i].getAttentionMask(), attentionMask[i]);
+            copy(encodings[i].getTypeIds(), tokenTypeIds[i]);
+        }
+
+        try (
+            OnnxTensor ids = OnnxTensor.createTensor(environment, inputIds);
+            OnnxTensor mask = OnnxTensor.createTensor(environment, attentionMask);
+            OnnxTensor types = OnnxTensor.createTensor(environment, tokenTypeIds)
+        ) {
+            // Only the inputs this model declares
+            Set<String> inputNames = session.getInputNames();
+            Map<String, OnnxTensor> inputs = new HashMap<>();
+            inputs.put("input_ids", ids);
+            inputs.put("attention_mask", mask);
+            inputs.put("token_type_ids", types);
+            inputs.keySet().retainAll(inputNames);
+            try (OrtSession.Result result = session.run(inputs)) {
+                float[][][] hidden = (float[][][]) result
+                    .get(OUTPUT_NAME)
+                    .orElseThrow(() ->
+                        new IllegalStateException("Model has no output " + OUTPUT_NAME)
+                    )
+                    .getValue();
+                return meanPooled(hidden, attentionMask);
+            }
+        }
+    }
+
+    /** Average of the token vectors the mask keeps */
+    private static float[][] meanPooled(float[][][] hidden, long[][] mask) {
+        float[][] pooled = new float[hidden.length][];
+        for (int i = 0; i < hidden.length; i++) {
+            int dimension = hidden[i][0].length;
+            float[] sum = new float[dimension];
+            long tokens = 0;
+            for (int t = 0; t < hidden[i].length; t++) {
+                if (mask[i][t] == 0) {
+                    continue;
+                }
+                tokens++;
+                for (int d = 0; d < dimension; d++) {
+                    sum[d] += hidden[i][t][d];
+                }
+            }
+            float divisor = Math.max(tokens, 1);
+            for (int d = 0; d < dimension; d++) {
+                sum[d] /= divisor;
+            }
+            pooled[i] = sum;
+        }
+        return pooled;
+    }
+
+    private static void copy(long[] source, long[] target) {
+        System.arraycopy(source, 0, target, 0, source.length);
+    }
+}
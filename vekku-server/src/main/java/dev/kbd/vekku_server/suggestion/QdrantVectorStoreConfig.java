@@ -0,0 +1,30 @@
+package dev.kbd.vekku_server.suggestion;
+
+import io.qdrant.client.QdrantClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring AI's vector store, on the live collection alias rather than the
+ * configured collection, which stops being live once {@link ReindexJob}
+ * switches the alias. Replaces the auto-configured one.
+ */
+@Configuration
+class QdrantVectorStoreConfig {
+
+    @Bean
+    QdrantVectorStore vectorStore(
+        QdrantClient qdrantClient,
+        EmbeddingModel embeddingModel,
+        @Value("${spring.ai.vectorstore.qdrant.collection-name}") String collectionName
+    ) {
+        return QdrantVectorStore.builder(qdrantClient, embeddingModel)
+            .collectionName(SuggestionVectorStore.aliasOf(collectionName))
+            // SuggestionVectorStore creates and prepares the collections
+            .initializeSchema(false)
+            .build();
+    }
+}
@@ -0,0 +1,63 @@
+package dev.kbd.vekku_server.suggestion;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/** Progress of a re-index run, written after every batch so a crash can resume */
+@Entity
+@Table(name = "reindex_checkpoints")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+class ReindexCheckpointEntity {
+
+    enum Phase {
+        TAGS,
+        CONTENTS,
+        DONE,
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    /** Collection being rebuilt; it goes live when the run is done */
+    @Column(nullable = false, name = "target_collection")
+    private String targetCollection;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Phase phase;
+
+    /** Id of the last tag or content of the phase that was written */
+    @Column(name = "last_id")
+    private String lastId;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @CreationTimestamp
+    @Column(name = "started_at", updatable = false)
+    private LocalDateTime startedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
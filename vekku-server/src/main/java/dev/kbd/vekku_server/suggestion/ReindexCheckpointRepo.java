@@ -0,0 +1,15 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.suggestion.ReindexCheckpointEntity.Phase;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+interface ReindexCheckpointRepo
+    extends JpaRepository<ReindexCheckpointEntity, UUID> {
+    Optional<ReindexCheckpointEntity> findFirstByPhaseNotOrderByStartedAtDesc(
+        Phase phase
+    );
+}
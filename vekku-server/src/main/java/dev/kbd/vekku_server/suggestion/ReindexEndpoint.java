@@ -0,0 +1,26 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.suggestion.ReindexJob.ReindexStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/reindex}: phase, documents done, docs/sec and ETA of
+ * the current or last re-index run. Read-only on purpose, since the
+ * actuator paths are not authenticated; runs are started with
+ * {@code vekku.suggestion.reindex.on-startup}.
+ */
+@Component
+@Endpoint(id = "reindex")
+@RequiredArgsConstructor
+class ReindexEndpoint {
+
+    private final ReindexJob reindexJob;
+
+    @ReadOperation
+    ReindexStatus status() {
+        return reindexJob.status();
+    }
+}
@@ -0,0 +1,346 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
+import dev.kbd.vekku_server.content.api.IContentService;
+import dev.kbd.vekku_server.suggestion.ContentChunker.Chunk;
+import dev.kbd.vekku_server.suggestion.ReindexCheckpointEntity.Phase;
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import io.qdrant.client.grpc.Points.PointStruct;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the vector store from Postgres into a fresh collection, e.g.
+ * after a model change or a lost Qdrant volume.
+ * <p>
+ * Tags and contents are read in keyset batches, each in a short
+ * transaction of its own, so a long run holds no snapshot open, and
+ * embedded batch by batch; the next batch is read while the previous one
+ * is written. A checkpoint is saved after every written batch, and an
+ * unfinished run resumes from it on the next start.
+ * <p>
+ * Live writes are mirrored into the new collection while it is built, and
+ * the alias is switched to it at the end. Mirroring starts before any
+ * batch is read, and for an unfinished run before the listeners start on
+ * the next start, so no write between the checkpoint and the resume is
+ * missed. Progress is reported by {@link ReindexEndpoint}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ReindexJob {
+
+    record ReindexStatus(
+        String state,
+        Phase phase,
+        String targetCollection,
+        long processed,
+        long total,
+        double docsPerSecond,
+        Long etaSeconds
+    ) {}
+
+    private final ITagService tagService;
+    private final IContentService contentService;
+    private final ContentChunker contentChunker;
+    private final EmbeddingCache embeddingCache;
+    private final SuggestionVectorStore suggestionVectorStore;
+    private final TagVectorIndex tagVectorIndex;
+    private final ReindexCheckpointRepo reindexCheckpointRepo;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+        new CustomizableThreadFactory("reindex-")
+    );
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+        new CustomizableThreadFactory("reindex-writer-")
+    );
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${vekku.suggestion.reindex.batch-size}")
+    private int batchSize;
+
+    @Value("${vekku.suggestion.reindex.on-startup}")
+    private boolean startOnStartup;
+
+    private volatile ReindexCheckpointEntity checkpoint;
+    private volatile long total;
+    private volatile long processedAtLaunch;
+    private volatile long launchedAtNanos;
+    private volatile boolean failed;
+
+    /**
+     * Mirrors writes into the collection of an unfinished run. Runs while
+     * the context starts, before the message listeners do.
+     */
+    @PostConstruct
+    void mirrorUnfinished() {
+        reindexCheckpointRepo
+            .findFirstByPhaseNotOrderByStartedAtDesc(Phase.DONE)
+            .ifPresent(unfinished -> {
+                try {
+                    mirrorInto(unfinished.getTargetCollection());
+                } catch (Exception e) {
+                    log.warn(
+                        "Could not mirror writes into {} before resuming: {}",
+                        unfinished.getTargetCollection(),
+                        e.getMessage()
+                    );
+                }
+            });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeOrStartOnStartup() {
+        reindexCheckpointRepo
+            .findFirstByPhaseNotOrderByStartedAtDesc(Phase.DONE)
+            .ifPresentOrElse(
+                unfinished -> {
+                    log.info(
+                        "Resuming re-index into {} at {} after {}",
+                        unfinished.getTargetCollection(),
+                        unfinished.getPhase(),
+                        unfinished.getLastId()
+                    );
+                    launch(unfinished);
+                },
+                () -> {
+                    if (startOnStartup) {
+                        start();
+                    }
+                }
+            );
+    }
+
+    /** @return false if a run is already in progress */
+    boolean start() {
+        return launch(
+            ReindexCheckpointEntity.builder()
+                .targetCollection(
+                    suggestionVectorStore.baseCollectionName() +
+                        "_" +
+                        System.currentTimeMillis()
+                )
+                .phase(Phase.TAGS)
+                .processed(0)
+                .build()
+        );
+    }
+
+    ReindexStatus status() {
+        ReindexCheckpointEntity current = checkpoint;
+        if (current == null) {
+            return new ReindexStatus("IDLE", null, null, 0, 0, 0, null);
+        }
+        boolean isRunning = running.get();
+        double seconds = (System.nanoTime() - launchedAtNanos) / 1e9;
+        double docsPerSecond = isRunning && seconds > 0
+            ? (current.getProcessed() - processedAtLaunch) / seconds
+            : 0;
+        Long etaSeconds = docsPerSecond > 0
+            ? (long) (Math.max(0, total - current.getProcessed()) / docsPerSecond)
+            : null;
+        String state = isRunning
+            ? "RUNNING"
+            : failed ? "FAILED" : current.getPhase() == Phase.DONE ? "DONE" : "STOPPED";
+        return new ReindexStatus(
+            state,
+            current.getPhase(),
+            current.getTargetCollection(),
+            current.getProcessed(),
+            total,
+            docsPerSecond,
+            etaSeconds
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+        writer.shutdownNow();
+    }
+
+    private boolean launch(ReindexCheckpointEntity from) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        failed = false;
+        try {
+            checkpoint = reindexCheckpointRepo.save(from);
+            // Before the launch returns, so no write after it is missed
+            mirrorInto(checkpoint.getTargetCollection());
+        } catch (RuntimeException e) {
+            failed = true;
+            running.set(false);
+            log.error("Re-index into {} could not start", from.getTargetCollection(), e);
+            return true;
+        }
+        runner.execute(this::run);
+        return true;
+    }
+
+    /** Creates the collection if needed; live writes then go to it too */
+    private void mirrorInto(String target) {
+        suggestionVectorStore.prepareCollection(target);
+        suggestionVectorStore.mirrorWritesTo(target);
+    }
+
+    private void run() {
+        String target = checkpoint.getTargetCollection();
+        try {
+            total = tagService.countAllTags() + contentService.countContents();
+            processedAtLaunch = checkpoint.getProcessed();
+            launchedAtNanos = System.nanoTime();
+            log.info("Re-indexing {} documents into {}", total, target);
+
+            if (checkpoint.getPhase() == Phase.TAGS) {
+                stream(
+                    tagService::getAllTagsAfter,
+                    tags -> writeTags(target, tags),
+                    TagDTO::id
+                );
+                advanceTo(Phase.CONTENTS);
+            }
+            if (checkpoint.getPhase() == Phase.CONTENTS) {
+                stream(
+                    contentService::getAllContentsAfter,
+                    contents -> writeContents(target, contents),
+                    content -> content.id().toString()
+                );
+            }
+
+            String previous = suggestionVectorStore.switchTo(target);
+            // Cached tag vectors came from the old collection
+            tagVectorIndex.clear();
+            advanceTo(Phase.DONE);
+            log.info(
+                "Re-index into {} done, {} is no longer live and can be dropped",
+                target,
+                previous
+            );
+        } catch (Exception e) {
+            failed = true;
+            log.error("Re-index into {} failed, it resumes on restart", target, e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Hands each batch to the writer thread while the next one is read. At
+     * most one batch is in flight, so reading never runs far ahead of
+     * writing, and the checkpoint only moves past written batches.
+     * @param source the batch after an id, or after the start for null
+     */
+    private <T> void stream(
+        BiFunction<String, Integer, List<T>> source,
+        Consumer<List<T>> write,
+        Function<T, String> idOf
+    ) {
+        CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+        String afterId = checkpoint.getLastId();
+        List<T> batch;
+        do {
+            batch = source.apply(afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            inFlight.join();
+            List<T> written = batch;
+            inFlight = CompletableFuture.runAsync(
+                () -> {
+                    write.accept(written);
+                    saveProgress(idOf.apply(written.getLast()), written.size());
+                },
+                writer
+            );
+            afterId = idOf.apply(batch.getLast());
+        } while (batch.size() == batchSize);
+        inFlight.join();
+    }
+
+    private void writeTags(String target, List<TagDTO> tags) {
+        List<String> tagIds = new ArrayList<>();
+        List<String> userIds = new ArrayList<>();
+        List<String> terms = new ArrayList<>();
+        for (TagDTO tag : tags) {
+            for (String term : TagTerms.of(tag.name(), tag.synonyms())) {
+                tagIds.add(tag.id());
+                userIds.add(tag.userId());
+                terms.add(term);
+            }
+        }
+        List<float[]> vectors = embeddingCache.embedAll(terms);
+
+        List<PointStruct> points = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            points.add(
+                SuggestionPoints.termPoint(
+                    tagIds.get(i),
+                    userIds.get(i),
+                    terms.get(i),
+                    vectors.get(i)
+                )
+            );
+        }
+        suggestionVectorStore.upsertInto(target, points);
+    }
+
+    private void writeContents(String target, List<ContentDTO> contents) {
+        List<List<Chunk>> chunksPerContent = contents
+            .stream()
+            .map(c -> contentChunker.chunk(c.content(), c.contentType()))
+            .toList();
+        List<float[]> vectors = embeddingCache.embedAll(
+            chunksPerContent.stream().flatMap(List::stream).map(Chunk::text).toList()
+        );
+
+        List<PointStruct> points = new ArrayList<>(vectors.size());
+        int offset = 0;
+        for (int i = 0; i < contents.size(); i++) {
+            ContentDTO content = contents.get(i);
+            for (Chunk chunk : chunksPerContent.get(i)) {
+                points.add(
+                    SuggestionPoints.chunkPoint(
+                        content.id().toString(),
+                        content.userId(),
+                        chunk,
+                        vectors.get(offset++)
+                    )
+                );
+            }
+        }
+        suggestionVectorStore.upsertInto(target, points);
+    }
+
+    private void saveProgress(String lastId, int written) {
+        ReindexCheckpointEntity current = checkpoint;
+        current.setLastId(lastId);
+        current.setProcessed(current.getProcessed() + written);
+        checkpoint = reindexCheckpointRepo.save(current);
+    }
+
+    private void advanceTo(Phase phase) {
+        ReindexCheckpointEntity current = checkpoint;
+        current.setPhase(phase);
+        current.setLastId(null);
+        checkpoint = reindexCheckpointRepo.save(current);
+    }
+}
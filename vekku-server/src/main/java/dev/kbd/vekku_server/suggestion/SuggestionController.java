@@ -1,13 +1,14 @@
 package dev.kbd.vekku_server.suggestion;
 
+import dev.kbd.vekku_server.content.api.IContentService;
 import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
-import java.util.Map;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.SuggestionPage;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("api/v1/suggestions")
@@ -16,20 +17,51 @@ import org.springframework.web.bind.annotation.RestController;
 class SuggestionController {
 
     private final ISuggestionService suggestionService;
+    private final IContentService contentService;
 
-    Map<String, Double> getSuggestionsOfContent(
-        String contentId,
-        String fromCursor,
-        int limit,
-        String direction,
+    /**
+     * Suggested tags of a content, best score first
+     * @param fromCursor nextCursor or prevCursor of the previous page
+     */
+    @GetMapping("/content/{contentId}")
+    public SuggestionPage getSuggestionsOfContent(
+        @PathVariable String contentId,
+        @RequestParam(required = false, name = "from") String fromCursor,
+        @RequestParam(required = false, defaultValue = "10") int limit,
+        @RequestParam(required = false, defaultValue = "next") String dir,
         @AuthenticationPrincipal Jwt jwt
     ) {
-        return suggestionService.getSuggestionsOfContent(
+        String userId = jwt.getSubject();
+        log.info(
+            "Fetching suggestions of content {} (cursor: {}, limit: {}, dir: {}) for user {}",
             contentId,
             fromCursor,
             limit,
-            direction,
-            jwt.getSubject()
+            dir,
+            userId
         );
+
+        SuggestionPage page = suggestionService.getSuggestionsOfContent(
+            contentId,
+            fromCursor,
+            limit,
+            dir,
+            userId
+        );
+
+        log.info("Retrieved {} suggestions", page.suggestions().size());
+        return page;
+    }
+
+    @GetMapping("/content/{contentId}/keywords")
+    public Set<String> getKeywordsOfContent(
+        @PathVariable String contentId,
+        @RequestParam(required = false, defaultValue = "10") int count,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        String userId = jwt.getSubject();
+        log.info("Extracting keywords of content {} for user {}", contentId, userId);
+        String content = contentService.getContentOfUser(contentId, userId).content();
+        return suggestionService.getKeywords(userId, content, count);
     }
 }
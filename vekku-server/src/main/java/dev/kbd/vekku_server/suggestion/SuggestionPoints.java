@@ -0,0 +1,97 @@
+package dev.kbd.vekku_server.suggestion;
+
+import static io.qdrant.client.ValueFactory.value;
+
+import dev.kbd.vekku_server.suggestion.ContentChunker.Chunk;
+import dev.kbd.vekku_server.suggestion.SuggestionVectorStore.ChunkScores;
+import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
+import io.qdrant.client.grpc.JsonWithInt.Value;
+import io.qdrant.client.grpc.Points.PointStruct;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Builds the Qdrant points of tag terms and content chunks. */
+final class SuggestionPoints {
+
+    private SuggestionPoints() {}
+
+    static PointStruct termPoint(
+        String tagId,
+        String userId,
+        String term,
+        float[] vector
+    ) {
+        Map<String, Value> payload = new HashMap<>();
+        payload.put(SuggestionVectorStore.FIELD_CONTENT, value(term));
+        payload.put(
+            SuggestionVectorStore.FIELD_TYPE,
+            value(ISuggestionService.METADATA_TYPE_TAG)
+        );
+        payload.put(SuggestionVectorStore.FIELD_TAG_ID, value(tagId));
+        payload.put(SuggestionVectorStore.FIELD_USER_ID, value(userId));
+        return SuggestionVectorStore.point(
+            SuggestionVectorStore.termPointId(tagId, term),
+            vector,
+            payload
+        );
+    }
+
+    /**
+     * What stored chunk scores depend on besides the chunk: the user's tag
+     * set and the search settings
+     */
+    static String scoreBasis(long tagSetVersion, double threshold, int count) {
+        return tagSetVersion + ":" + threshold + ":" + count;
+    }
+
+    static PointStruct chunkPoint(
+        String contentId,
+        String userId,
+        Chunk chunk,
+        float[] vector
+    ) {
+        return chunkPoint(contentId, userId, chunk, vector, null);
+    }
+
+    /**
+     * @param scores tag scores of the chunk, kept so an edit elsewhere in
+     * the content need not search this chunk again; null if not searched
+     */
+    static PointStruct chunkPoint(
+        String contentId,
+        String userId,
+        Chunk chunk,
+        float[] vector,
+        ChunkScores scores
+    ) {
+        Map<String, Value> payload = new HashMap<>();
+        payload.put(SuggestionVectorStore.FIELD_CONTENT, value(""));
+        payload.put(
+            SuggestionVectorStore.FIELD_TYPE,
+            value(ISuggestionService.METADATA_TYPE_CHUNK)
+        );
+        payload.put(SuggestionVectorStore.FIELD_CONTENT_ID, value(contentId));
+        payload.put(SuggestionVectorStore.FIELD_USER_ID, value(userId));
+        payload.put(
+            SuggestionVectorStore.FIELD_CHUNK_INDEX,
+            value((long) chunk.index())
+        );
+        payload.put(
+            SuggestionVectorStore.FIELD_CHUNK_START,
+            value((long) chunk.start())
+        );
+        payload.put(SuggestionVectorStore.FIELD_CHUNK_END, value((long) chunk.end()));
+        payload.put(SuggestionVectorStore.FIELD_CHUNK_HASH, value(chunk.hash()));
+        if (scores != null) {
+            Map<String, Value> tagScores = new HashMap<>();
+            scores.scores().forEach((tagId, score) -> tagScores.put(tagId, value(score)));
+            payload.put(SuggestionVectorStore.FIELD_TAG_SCORES, value(tagScores));
+            payload.put(SuggestionVectorStore.FIELD_SCORE_BASIS, value(scores.basis()));
+        }
+        return SuggestionVectorStore.point(
+            SuggestionVectorStore.chunkPointId(contentId, chunk.index()),
+            vector,
+            payload
+        );
+    }
+}
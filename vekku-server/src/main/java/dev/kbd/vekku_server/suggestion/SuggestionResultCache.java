@@ -0,0 +1,67 @@
+package dev.kbd.vekku_server.suggestion;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.content.api.ContentEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Suggestion results of previously seen content, so re-suggesting the same
+ * text skips embedding and search.
+ * <p>
+ * Keys carry the user's tag set version, which goes up on every change to
+ * their tags. A change therefore invalidates all of the user's entries at
+ * once without touching them: lookups simply move on to new keys, and the
+ * orphaned entries age out of the bounded cache.
+ */
+@Component
+class SuggestionResultCache {
+
+    record Key(
+        String contentHash,
+        String userId,
+        double threshold,
+        int count,
+        long tagSetVersion
+    ) {}
+
+    /** @param contentId content the scores were computed for */
+    record Entry(String contentId, Map<String, Double> scores) {}
+
+    private final Cache<Key, Entry> cache;
+
+    SuggestionResultCache(
+        MeterRegistry meterRegistry,
+        @Value("${vekku.suggestion.result-cache.max-entries}") long maxEntries
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "suggestion-results");
+    }
+
+    /** Same hash as the content events carry */
+    static String contentHash(String content, ContentType contentType) {
+        return ContentEvents.contentHash(content, contentType);
+    }
+
+    Entry get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    void put(Key key, String contentId, Map<String, Double> scores) {
+        // Keeps the best-first order of the scores
+        cache.put(
+            key,
+            new Entry(contentId, Collections.unmodifiableMap(new LinkedHashMap<>(scores)))
+        );
+    }
+}
@@ -1,17 +1,29 @@
 package dev.kbd.vekku_server.suggestion;
 
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.suggestion.ContentChunker.Chunk;
+import dev.kbd.vekku_server.suggestion.SuggestionVectorStore.ChunkScores;
+import dev.kbd.vekku_server.suggestion.SuggestionVectorStore.StoredChunk;
+import dev.kbd.vekku_server.suggestion.SuggestionVectorStore.TagQuery;
 import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.ContentToSuggest;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.SuggestionPage;
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import io.qdrant.client.grpc.Points.PointStruct;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,91 +31,614 @@ import org.springframework.stereotype.Service;
 @Slf4j
 class SuggestionServiceImpl implements ISuggestionService {
 
-    private final VectorStore vectorStore;
+    private final ContentChunker contentChunker;
+    private final ContentSuggestionStore contentSuggestionStore;
+    private final EmbeddingCache embeddingCache;
+    private final ITagService tagService;
+    private final KeywordExtractor keywordExtractor;
+    private final SuggestionResultCache suggestionResultCache;
+    private final SuggestionVectorStore suggestionVectorStore;
+    private final TagTermMatcher tagTermMatcher;
+    private final TagVectorIndex tagVectorIndex;
+
+    // bge models embed short queries against passages best with this prefix
+    private static final String QUERY_INSTRUCTION =
+        "Represent this sentence for searching relevant passages: ";
+
+    @Value("${vekku.suggestion.reverse-pass.max-chunks}")
+    private int reversePassMaxChunks;
+
+    @Value("${vekku.suggestion.exact-match.skip-search-at}")
+    private int exactMatchSkipSearchAt;
+
+    @Value("${vekku.suggestion.search.min-score}")
+    private double searchMinScore;
 
     @Override
     public Map<String, Double> createSuggestionsForContent(
         String contentId,
+        String userId,
         String content,
+        ContentType contentType,
         double threshold,
         int count
     ) {
-        log.info("Creating suggestions for content: {}", contentId);
+        return createSuggestionsForContents(
+            List.of(new ContentToSuggest(contentId, userId, content, contentType)),
+            threshold,
+            count
+        ).getOrDefault(contentId, Map.of());
+    }
+
+    @Override
+    public Map<String, Map<String, Double>> createSuggestionsForContents(
+        List<ContentToSuggest> contents,
+        double threshold,
+        int count
+    ) {
+        log.info("Creating suggestions for {} contents", contents.size());
+        if (contents.isEmpty()) {
+            return Map.of();
+        }
+
+        // 1. Text already suggested against the same tag set is served from
+        // the result cache. If that was under another content id, the new
+        // content still needs chunk points, but no search.
+        Map<String, Long> tagSetVersions = tagService.getTagSetVersions(
+            contents.stream().map(ContentToSuggest::userId).collect(Collectors.toSet())
+        );
+        Map<String, Map<String, Double>> result = new HashMap<>();
+        Map<String, String> userIdByContent = new HashMap<>();
+        Map<String, SuggestionResultCache.Key> cacheKeys = new HashMap<>();
+        List<ContentToSuggest> toScore = new ArrayList<>();
+        List<ContentToSuggest> toIndexOnly = new ArrayList<>();
+        for (ContentToSuggest content : contents) {
+            SuggestionResultCache.Key key = new SuggestionResultCache.Key(
+                SuggestionResultCache.contentHash(
+                    content.content(),
+                    content.contentType()
+                ),
+                content.userId(),
+                threshold,
+                count,
+                tagSetVersions.get(content.userId())
+            );
+            SuggestionResultCache.Entry cached = suggestionResultCache.get(key);
+            if (cached == null) {
+                cacheKeys.put(content.contentId(), key);
+                toScore.add(content);
+                continue;
+            }
+            result.put(content.contentId(), cached.scores());
+            userIdByContent.put(content.contentId(), content.userId());
+            if (!cached.contentId().equals(content.contentId())) {
+                toIndexOnly.add(content);
+            }
+        }
+        log.info(
+            "{} of {} contents served from the result cache",
+            contents.size() - toScore.size(),
+            contents.size()
+        );
 
-        // Search for similar tags (assuming tags are stored in the vector store)
-        List<Document> similarDocs = vectorStore.similaritySearch(
-            SearchRequest.builder()
-                .query(content)
-                .topK(count)
-                .similarityThreshold(threshold)
-                .build()
+        List<ContentToSuggest> toIndex = new ArrayList<>(toScore);
+        toIndex.addAll(toIndexOnly);
+        if (!toIndex.isEmpty()) {
+            scoreAndIndex(
+                toIndex,
+                toScore.size(),
+                tagSetVersions,
+                threshold,
+                count,
+                result
+            );
+            toIndex.forEach(content ->
+                userIdByContent.put(content.contentId(), content.userId())
+            );
+        }
+        contentSuggestionStore.replace(result, userIdByContent);
+        toScore.forEach(content ->
+            suggestionResultCache.put(
+                cacheKeys.get(content.contentId()),
+                content.contentId(),
+                result.get(content.contentId())
+            )
         );
 
-        List<Map<String, Object>> suggestions = new ArrayList<>();
-        for (Document doc : similarDocs) {
-            Map<String, Object> suggestion = new HashMap<>();
-            suggestion.put("tagId", doc.getId());
+        return result;
+    }
 
-            Object distance = doc.getMetadata().getOrDefault("distance", 0.0);
-            suggestion.put("distance", distance);
+    /**
+     * Chunks and embeds the contents and writes their chunk points. Only the
+     * first {@code scored} contents are searched, their tag scores go into
+     * {@code result}. Searched chunks keep their own scores in their points.
+     */
+    private void scoreAndIndex(
+        List<ContentToSuggest> contents,
+        int scored,
+        Map<String, Long> tagSetVersions,
+        double threshold,
+        int count,
+        Map<String, Map<String, Double>> result
+    ) {
+        // 2. Chunk every content and embed all chunks together
+        List<List<Chunk>> chunksPerContent = contents
+            .stream()
+            .map(c -> contentChunker.chunk(c.content(), c.contentType()))
+            .toList();
+        List<float[]> chunkVectors = embeddingCache.embedAll(
+            chunksPerContent.stream().flatMap(List::stream).map(Chunk::text).toList()
+        );
 
-            suggestions.add(suggestion);
+        // 3. Tags named verbatim in the text score 1.0. Contents with enough
+        // of them skip the tag search; the others score every chunk.
+        List<Set<String>> exactTags = new ArrayList<>(scored);
+        int[] firstQuery = new int[scored];
+        List<TagQuery> queries = new ArrayList<>();
+        for (int i = 0, offset = 0; i < scored; i++) {
+            ContentToSuggest content = contents.get(i);
+            exactTags.add(
+                tagTermMatcher.match(
+                    content.userId(),
+                    tagSetVersions.get(content.userId()),
+                    content.content()
+                )
+            );
+            firstQuery[i] = -1;
+            if (exactTags.get(i).size() < exactMatchSkipSearchAt) {
+                firstQuery[i] = queries.size();
+                for (int j = 0; j < chunksPerContent.get(i).size(); j++) {
+                    queries.add(
+                        new TagQuery(content.userId(), chunkVectors.get(offset + j))
+                    );
+                }
+            }
+            offset += chunksPerContent.get(i).size();
         }
+        List<Map<String, Double>> chunkScores = scoreTags(
+            queries,
+            tagSetVersions,
+            threshold,
+            count
+        );
 
-        // Store the suggestions with the contentId as part of the metadata
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("contentId", contentId);
-        metadata.put("suggestedTags", suggestions);
-        metadata.put("type", ISuggestionService.METADATA_TYPE_SUGGESTION);
+        // 4. A tag's score is its best chunk score. Chunk points of the
+        // whole batch are written in one upsert.
+        List<PointStruct> points = new ArrayList<>();
+        Map<String, Integer> chunkCounts = new HashMap<>();
+        for (int i = 0, offset = 0; i < contents.size(); i++) {
+            ContentToSuggest content = contents.get(i);
+            List<Chunk> chunks = chunksPerContent.get(i);
+            List<float[]> vectors = chunkVectors.subList(
+                offset,
+                offset + chunks.size()
+            );
 
-        Document suggestionDoc = new Document(contentId, "", metadata);
-        vectorStore.add(List.of(suggestionDoc));
+            Map<String, Double> best = new HashMap<>();
+            if (i < scored) {
+                exactTags.get(i).forEach(tagId -> best.put(tagId, 1.0));
+            }
+            boolean searched = i < scored && firstQuery[i] >= 0;
+            String basis = SuggestionPoints.scoreBasis(
+                tagSetVersions.get(content.userId()),
+                threshold,
+                count
+            );
+            for (int j = 0; j < chunks.size(); j++) {
+                ChunkScores scores = null;
+                if (searched) {
+                    scores = new ChunkScores(basis, chunkScores.get(firstQuery[i] + j));
+                    scores
+                        .scores()
+                        .forEach((tagId, score) ->
+                            best.merge(tagId, score, Math::max)
+                        );
+                }
+                points.add(
+                    SuggestionPoints.chunkPoint(
+                        content.contentId(),
+                        content.userId(),
+                        chunks.get(j),
+                        vectors.get(j),
+                        scores
+                    )
+                );
+            }
+            if (i < scored) {
+                result.put(content.contentId(), TagScores.top(best, count));
+            }
 
-        Map<String, Double> result = new HashMap<>();
-        for (Map<String, Object> s : suggestions) {
-            result.put(
-                (String) s.get("tagId"),
-                ((Number) s.get("distance")).doubleValue()
+            chunkCounts.put(content.contentId(), chunks.size());
+            offset += chunks.size();
+        }
+        suggestionVectorStore.upsert(points);
+        suggestionVectorStore.deleteChunksBeyond(chunkCounts);
+    }
+
+    /**
+     * Re-suggests an edited content from its stored chunk points. Chunks
+     * are matched by text hash, wherever they moved: known text keeps its
+     * vector, and its tag scores too if they were computed against the
+     * current tag set. Only new text is embedded, only chunks without
+     * current scores are searched, and only points whose position, text or
+     * scores changed are rewritten.
+     */
+    @Override
+    public Map<String, Double> updateSuggestionsForContent(
+        String contentId,
+        String userId,
+        String content,
+        ContentType contentType,
+        double threshold,
+        int count
+    ) {
+        List<StoredChunk> stored = suggestionVectorStore.getChunks(contentId);
+        if (stored.isEmpty()) {
+            return createSuggestionsForContent(
+                contentId,
+                userId,
+                content,
+                contentType,
+                threshold,
+                count
             );
         }
+        long tagSetVersion = tagService
+            .getTagSetVersions(List.of(userId))
+            .get(userId);
+        String basis = SuggestionPoints.scoreBasis(tagSetVersion, threshold, count);
+        Map<String, StoredChunk> storedByHash = new HashMap<>();
+        Map<Integer, StoredChunk> storedByIndex = new HashMap<>();
+        for (StoredChunk chunk : stored) {
+            storedByHash.putIfAbsent(chunk.hash(), chunk);
+            storedByIndex.put(chunk.index(), chunk);
+        }
+
+        // 1. Only text without a stored chunk goes through the model
+        List<Chunk> chunks = contentChunker.chunk(content, contentType);
+        List<Chunk> newText = chunks
+            .stream()
+            .filter(chunk -> !storedByHash.containsKey(chunk.hash()))
+            .toList();
+        List<float[]> newVectors = embeddingCache.embedAll(
+            newText.stream().map(Chunk::text).toList()
+        );
+        Map<String, float[]> vectorByHash = new HashMap<>();
+        storedByHash.forEach((hash, chunk) -> vectorByHash.put(hash, chunk.vector()));
+        for (int i = 0; i < newText.size(); i++) {
+            vectorByHash.put(newText.get(i).hash(), newVectors.get(i));
+        }
+
+        // 2. Exact matching is cheap and redone on the whole text; chunks
+        // are searched only if they have no scores on the current basis
+        Set<String> exactTags = tagTermMatcher.match(userId, tagSetVersion, content);
+        boolean search = exactTags.size() < exactMatchSkipSearchAt;
+        List<ChunkScores> scores = new ArrayList<>(
+            Collections.nCopies(chunks.size(), null)
+        );
+        boolean[] rescored = new boolean[chunks.size()];
+        List<Integer> toSearch = new ArrayList<>();
+        for (int j = 0; search && j < chunks.size(); j++) {
+            StoredChunk known = storedByHash.get(chunks.get(j).hash());
+            if (
+                known != null &&
+                known.scores() != null &&
+                known.scores().basis().equals(basis)
+            ) {
+                scores.set(j, known.scores());
+            } else {
+                toSearch.add(j);
+                rescored[j] = true;
+            }
+        }
+        List<Map<String, Double>> searched = scoreTags(
+            toSearch
+                .stream()
+                .map(j -> new TagQuery(userId, vectorByHash.get(chunks.get(j).hash())))
+                .toList(),
+            Map.of(userId, tagSetVersion),
+            threshold,
+            count
+        );
+        for (int k = 0; k < toSearch.size(); k++) {
+            scores.set(toSearch.get(k), new ChunkScores(basis, searched.get(k)));
+        }
+
+        Map<String, Double> best = new HashMap<>();
+        exactTags.forEach(tagId -> best.put(tagId, 1.0));
+        if (search) {
+            scores.forEach(chunkScores ->
+                chunkScores
+                    .scores()
+                    .forEach((tagId, score) -> best.merge(tagId, score, Math::max))
+            );
+        }
+        Map<String, Double> result = TagScores.top(best, count);
+
+        // 3. A point at an unchanged position keeps its stored scores
+        List<PointStruct> points = new ArrayList<>();
+        for (int j = 0; j < chunks.size(); j++) {
+            Chunk chunk = chunks.get(j);
+            StoredChunk before = storedByIndex.get(chunk.index());
+            boolean unchanged =
+                before != null &&
+                before.hash().equals(chunk.hash()) &&
+                before.start() == chunk.start() &&
+                before.end() == chunk.end() &&
+                !rescored[j];
+            if (!unchanged) {
+                points.add(
+                    SuggestionPoints.chunkPoint(
+                        contentId,
+                        userId,
+                        chunk,
+                        vectorByHash.get(chunk.hash()),
+                        scores.get(j)
+                    )
+                );
+            }
+        }
+        suggestionVectorStore.upsert(points);
+        suggestionVectorStore.deleteChunksBeyond(Map.of(contentId, chunks.size()));
+
+        contentSuggestionStore.replace(
+            Map.of(contentId, result),
+            Map.of(contentId, userId)
+        );
+        suggestionResultCache.put(
+            new SuggestionResultCache.Key(
+                SuggestionResultCache.contentHash(content, contentType),
+                userId,
+                threshold,
+                count,
+                tagSetVersion
+            ),
+            contentId,
+            result
+        );
+        log.info(
+            "Re-suggested content {}: {} of {} chunks embedded, {} searched, {} points written",
+            contentId,
+            newText.size(),
+            chunks.size(),
+            toSearch.size(),
+            points.size()
+        );
         return result;
     }
 
+    /**
+     * Scores each query against its user's tags. Users whose tags are in the
+     * in-memory index are scored locally; everyone else is searched in one
+     * batched Qdrant call. Results are in query order.
+     */
+    private List<Map<String, Double>> scoreTags(
+        List<TagQuery> queries,
+        Map<String, Long> tagSetVersions,
+        double threshold,
+        int count
+    ) {
+        List<Map<String, Double>> scores = new ArrayList<>(
+            Collections.nCopies(queries.size(), null)
+        );
+        Map<String, List<Integer>> positionsByUser = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            positionsByUser
+                .computeIfAbsent(queries.get(i).userId(), k -> new ArrayList<>())
+                .add(i);
+        }
+
+        List<Integer> remote = new ArrayList<>();
+        positionsByUser.forEach((userId, positions) -> {
+            Optional<List<Map<String, Double>>> local = tagVectorIndex.search(
+                userId,
+                tagSetVersions.get(userId),
+                positions.stream().map(i -> queries.get(i).vector()).toList(),
+                threshold,
+                count
+            );
+            if (local.isEmpty()) {
+                remote.addAll(positions);
+                return;
+            }
+            for (int j = 0; j < positions.size(); j++) {
+                scores.set(positions.get(j), local.get().get(j));
+            }
+        });
+
+        List<Map<String, Double>> remoteScores = suggestionVectorStore.searchTags(
+            remote.stream().map(queries::get).toList(),
+            threshold,
+            count
+        );
+        for (int j = 0; j < remote.size(); j++) {
+            scores.set(remote.get(j), remoteScores.get(j));
+        }
+        return scores;
+    }
+
     @Override
-    public Set<String> getKeywords(String content, int count) {
-        return Collections.emptySet();
+    public Set<String> getKeywords(String userId, String content, int count) {
+        return keywordExtractor.keywords(userId, content, count);
     }
 
     @Override
-    public void deleteSuggestionsOfContent(String id) {
-        log.info("Deleting suggestions for content: {}", id);
+    public Map<String, Double> searchContents(
+        String userId,
+        String query,
+        int limit
+    ) {
+        float[] vector = embeddingCache.embed(QUERY_INSTRUCTION + query);
+        Map<String, Double> scores = suggestionVectorStore.searchContents(
+            userId,
+            List.of(vector),
+            searchMinScore,
+            limit
+        );
+        return TagScores.top(scores, limit);
+    }
+
+    @Override
+    public void deleteSuggestionsOfContents(Collection<String> contentIds) {
+        log.info("Deleting suggestions of {} contents", contentIds.size());
+        contentSuggestionStore.deleteByContents(contentIds);
         try {
-            vectorStore.delete(List.of(id));
+            suggestionVectorStore.deleteByContents(contentIds);
         } catch (Exception e) {
             log.warn("Error deleting from VectorStore: {}", e.getMessage());
         }
     }
 
     @Override
-    public Map<String, Double> getSuggestionsOfContent(
+    public SuggestionPage getSuggestionsOfContent(
         String contentId,
         String fromCursor,
         int limit,
         String direction,
         String userId
     ) {
-        return Collections.emptyMap();
+        log.info(
+            "Get suggestions of content {} for user {} from {} limit {} dir {}",
+            contentId,
+            userId,
+            fromCursor,
+            limit,
+            direction
+        );
+        return contentSuggestionStore.getPage(
+            userId,
+            contentId,
+            fromCursor,
+            limit,
+            direction
+        );
     }
 
     @Override
-    public void saveTag(String tagId, String tagName) {
+    public void saveTag(
+        String tagId,
+        String tagName,
+        Set<String> synonyms,
+        String userId
+    ) {
         log.info("Saving tag with ID: {} and name: {}", tagId, tagName);
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("tagId", tagId);
-        metadata.put("type", ISuggestionService.METADATA_TYPE_TAG);
+        Set<String> terms = TagTerms.of(tagName, synonyms);
+        tagTermMatcher.put(userId, tagId, terms);
+        List<float[]> vectors = saveTerms(tagId, userId, terms);
+        log.info("Tag saved to VectorStore: {} ({} terms)", tagId, terms.size());
+        suggestForExistingContents(tagId, userId, vectors);
+        // Results cached between the tag change and now saw the old vectors
+        tagService.bumpTagSetVersion(userId);
+    }
 
-        Document document = new Document(tagId, tagName, metadata);
-        vectorStore.add(List.of(document));
-        log.info("Tag saved to VectorStore: {}", tagId);
+    @Override
+    public void updateTagTerms(
+        String tagId,
+        String userId,
+        Set<String> addedTerms,
+        Set<String> removedTerms
+    ) {
+        log.info(
+            "Updating tag {}: +{} -{} terms",
+            tagId,
+            addedTerms.size(),
+            removedTerms.size()
+        );
+        // Terms that stayed keep their points, only the difference is touched
+        removeTerms(tagId, userId, removedTerms);
+        tagTermMatcher.put(userId, tagId, addedTerms);
+        suggestForExistingContents(
+            tagId,
+            userId,
+            saveTerms(tagId, userId, addedTerms)
+        );
+        tagService.bumpTagSetVersion(userId);
+    }
+
+    @Override
+    public void deleteTag(String tagId, String userId, Set<String> terms) {
+        log.info("Deleting tag {} with {} terms", tagId, terms.size());
+        removeTerms(tagId, userId, terms);
+        contentSuggestionStore.deleteByTag(tagId);
+        tagService.bumpTagSetVersion(userId);
+    }
+
+    private void removeTerms(String tagId, String userId, Set<String> terms) {
+        List<String> pointIds = terms
+            .stream()
+            .map(term -> SuggestionVectorStore.termPointId(tagId, term))
+            .distinct()
+            .toList();
+        suggestionVectorStore.delete(pointIds);
+        pointIds.forEach(pointId -> tagVectorIndex.remove(userId, pointId));
+        tagTermMatcher.remove(userId, tagId, terms);
+    }
+
+    /**
+     * Reverse pass: one batched search of the user's chunks with the tag's
+     * term vectors, instead of re-embedding every content for a new tag.
+     */
+    private void suggestForExistingContents(
+        String tagId,
+        String userId,
+        List<float[]> termVectors
+    ) {
+        Map<String, Double> scores = suggestionVectorStore.searchContents(
+            userId,
+            termVectors,
+            ISuggestionService.DEFAULT_THRESHOLD,
+            reversePassMaxChunks
+        );
+        int merged = contentSuggestionStore.mergeTag(
+            tagId,
+            userId,
+            scores,
+            ISuggestionService.DEFAULT_COUNT
+        );
+        log.info(
+            "Tag {} matched {} existing contents, suggested for {}",
+            tagId,
+            scores.size(),
+            merged
+        );
+    }
+
+    /**
+     * Stores one point per term, grouped by the tag id in the payload.
+     * @return the term vectors
+     */
+    private List<float[]> saveTerms(
+        String tagId,
+        String userId,
+        Set<String> terms
+    ) {
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        List<String> orderedTerms = new ArrayList<>(terms);
+        List<float[]> vectors = embeddingCache.embedAll(orderedTerms);
+
+        List<PointStruct> points = new ArrayList<>(orderedTerms.size());
+        for (int i = 0; i < orderedTerms.size(); i++) {
+            points.add(
+                SuggestionPoints.termPoint(
+                    tagId,
+                    userId,
+                    orderedTerms.get(i),
+                    vectors.get(i)
+                )
+            );
+        }
+        suggestionVectorStore.upsert(points);
+
+        for (int i = 0; i < points.size(); i++) {
+            tagVectorIndex.put(
+                userId,
+                tagId,
+                points.get(i).getId().getUuid(),
+                vectors.get(i)
+            );
+        }
+        return vectors;
     }
 }
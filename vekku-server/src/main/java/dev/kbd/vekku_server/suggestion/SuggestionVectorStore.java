@@ -0,0 +1,669 @@
+package dev.kbd.vekku_server.suggestion;
+
+import static io.qdrant.client.ConditionFactory.filter;
+import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.ConditionFactory.matchKeywords;
+import static io.qdrant.client.ConditionFactory.range;
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.VectorsFactory.vectors;
+import static io.qdrant.client.WithPayloadSelectorFactory.enable;
+import static io.qdrant.client.WithPayloadSelectorFactory.include;
+
+import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.Collections.AliasDescription;
+import io.qdrant.client.grpc.Collections.AliasOperations;
+import io.qdrant.client.grpc.Collections.BinaryQuantization;
+import io.qdrant.client.grpc.Collections.CreateAlias;
+import io.qdrant.client.grpc.Collections.CreateCollection;
+import io.qdrant.client.grpc.Collections.DeleteAlias;
+import io.qdrant.client.grpc.Collections.Disabled;
+import io.qdrant.client.grpc.Collections.Distance;
+import io.qdrant.client.grpc.Collections.KeywordIndexParams;
+import io.qdrant.client.grpc.Collections.PayloadIndexParams;
+import io.qdrant.client.grpc.Collections.PayloadSchemaType;
+import io.qdrant.client.grpc.Collections.QuantizationConfig;
+import io.qdrant.client.grpc.Collections.QuantizationConfigDiff;
+import io.qdrant.client.grpc.Collections.QuantizationType;
+import io.qdrant.client.grpc.Collections.ScalarQuantization;
+import io.qdrant.client.grpc.Collections.UpdateCollection;
+import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.Collections.VectorsConfig;
+import io.qdrant.client.grpc.JsonWithInt.Value;
+import io.qdrant.client.grpc.Points.BatchResult;
+import io.qdrant.client.grpc.Points.Filter;
+import io.qdrant.client.grpc.Points.PointGroup;
+import io.qdrant.client.grpc.Points.PointId;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.QuantizationSearchParams;
+import io.qdrant.client.grpc.Points.Range;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScoredPoint;
+import io.qdrant.client.grpc.Points.ScrollPoints;
+import io.qdrant.client.grpc.Points.ScrollResponse;
+import io.qdrant.client.grpc.Points.SearchParams;
+import io.qdrant.client.grpc.Points.SearchPointGroups;
+import io.qdrant.client.grpc.Points.SearchPoints;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+/**
+ * Native Qdrant access for the operations Spring AI's {@code VectorStore}
+ * cannot express: searching with vectors we already computed and writing
+ * many points in a single upsert.
+ * <p>
+ * Everything goes through the {@code <collection-name>_active} alias, which
+ * {@link ReindexJob} moves to a rebuilt collection in one atomic step.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class SuggestionVectorStore {
+
+    // Payload keys shared with Spring AI's QdrantVectorStore
+    static final String FIELD_CONTENT = "doc_content";
+    static final String FIELD_TYPE = "type";
+    static final String FIELD_USER_ID = "userId";
+    static final String FIELD_CONTENT_ID = "contentId";
+    static final String FIELD_CHUNK_INDEX = "chunkIndex";
+    static final String FIELD_TAG_ID = "tagId";
+    // Our own chunk payload
+    static final String FIELD_CHUNK_START = "start";
+    static final String FIELD_CHUNK_END = "end";
+    static final String FIELD_CHUNK_HASH = "chunkHash";
+    static final String FIELD_TAG_SCORES = "tagScores";
+    static final String FIELD_SCORE_BASIS = "scoreBasis";
+
+    private static final int SCROLL_PAGE_SIZE = 256;
+
+    // Reads and writes go through this alias, so a rebuilt collection can
+    // replace the live one with a single atomic alias update
+    private static final String ALIAS_SUFFIX = "_active";
+
+    private final QdrantClient qdrantClient;
+    private final EmbeddingModel embeddingModel;
+
+    // A collection being rebuilt; it receives every write until it goes live
+    private final AtomicReference<String> mirrorCollection =
+        new AtomicReference<>();
+
+    @org.springframework.beans.factory.annotation.Value(
+        "${spring.ai.vectorstore.qdrant.collection-name}"
+    )
+    private String baseCollectionName;
+
+    // The alias of the live collection
+    private String collectionName;
+
+    @org.springframework.beans.factory.annotation.Value(
+        "${vekku.suggestion.quantization.mode}"
+    )
+    private VectorQuantization quantization;
+
+    @org.springframework.beans.factory.annotation.Value(
+        "${vekku.suggestion.quantization.oversampling}"
+    )
+    private double oversampling;
+
+    record TagQuery(String userId, float[] vector) {}
+
+    /**
+     * Best tag scores of one chunk.
+     * @param basis what the scores depend on besides the chunk text, see
+     * {@link SuggestionPoints#scoreBasis}; they are stale once it changes
+     */
+    record ChunkScores(String basis, Map<String, Double> scores) {}
+
+    /** @param scores null if the chunk was indexed without a tag search */
+    record StoredChunk(
+        int index,
+        int start,
+        int end,
+        String hash,
+        float[] vector,
+        ChunkScores scores
+    ) {}
+
+    /**
+     * Resolves the live collection behind the alias. On the first start with
+     * aliases, the existing collection becomes the live one.
+     */
+    @PostConstruct
+    void initialize() {
+        collectionName = aliasOf(baseCollectionName);
+        try {
+            String live = liveCollection();
+            if (live == null) {
+                live = baseCollectionName;
+                prepareCollection(live);
+                await(qdrantClient.createAliasAsync(collectionName, live));
+            } else {
+                prepareCollection(live);
+            }
+            log.info("Qdrant alias {} points to {}", collectionName, live);
+        } catch (Exception e) {
+            log.warn(
+                "Could not prepare Qdrant collection {}: {}",
+                collectionName,
+                e.getMessage()
+            );
+        }
+    }
+
+    /** The collection the alias points to, or null if there is no alias yet */
+    String liveCollection() {
+        return await(qdrantClient.listAliasesAsync())
+            .stream()
+            .filter(alias -> alias.getAliasName().equals(collectionName))
+            .map(AliasDescription::getCollectionName)
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * Creates the collection if it is missing and makes sure the payload
+     * fields every search filters on are indexed. Qdrant treats creating an
+     * existing index as a no-op, so this is safe on every start.
+     * The configured quantization is applied to existing collections too;
+     * Qdrant rebuilds the quantized vectors in the background.
+     */
+    void prepareCollection(String name) {
+        if (!await(qdrantClient.collectionExistsAsync(name))) {
+            CreateCollection.Builder collection = CreateCollection.newBuilder()
+                .setCollectionName(name)
+                .setVectorsConfig(
+                    VectorsConfig.newBuilder()
+                        .setParams(
+                            VectorParams.newBuilder()
+                                .setSize(embeddingModel.dimensions())
+                                .setDistance(Distance.Cosine)
+                                // Originals are only read to rescore
+                                .setOnDisk(quantization != VectorQuantization.NONE)
+                        )
+                );
+            if (quantization != VectorQuantization.NONE) {
+                collection.setQuantizationConfig(quantizationConfig());
+            }
+            await(qdrantClient.createCollectionAsync(collection.build()));
+            log.info(
+                "Created Qdrant collection {} ({} quantization)",
+                name,
+                quantization
+            );
+        } else {
+            await(
+                qdrantClient.updateCollectionAsync(
+                    UpdateCollection.newBuilder()
+                        .setCollectionName(name)
+                        .setQuantizationConfig(quantizationConfigDiff())
+                        .build()
+                )
+            );
+        }
+        createKeywordIndex(name, FIELD_TYPE, false);
+        // Tenant index: Qdrant co-locates each user's points on disk
+        createKeywordIndex(name, FIELD_USER_ID, true);
+        createKeywordIndex(name, FIELD_CONTENT_ID, false);
+        // Tag searches group term hits by tag
+        createKeywordIndex(name, FIELD_TAG_ID, false);
+    }
+
+    /** Sends every following write to this collection as well */
+    void mirrorWritesTo(String name) {
+        mirrorCollection.set(name);
+    }
+
+    /**
+     * Points the alias at the collection in one atomic operation and stops
+     * mirroring writes to it.
+     * @return the collection that was live before
+     */
+    String switchTo(String name) {
+        String previous = liveCollection();
+        await(
+            qdrantClient.updateAliasesAsync(
+                List.of(
+                    AliasOperations.newBuilder()
+                        .setDeleteAlias(
+                            DeleteAlias.newBuilder().setAliasName(collectionName)
+                        )
+                        .build(),
+                    AliasOperations.newBuilder()
+                        .setCreateAlias(
+                            CreateAlias.newBuilder()
+                                .setAliasName(collectionName)
+                                .setCollectionName(name)
+                        )
+                        .build()
+                )
+            )
+        );
+        mirrorCollection.compareAndSet(name, null);
+        log.info("Qdrant alias {} switched from {} to {}", collectionName, previous, name);
+        return previous;
+    }
+
+    String baseCollectionName() {
+        return baseCollectionName;
+    }
+
+    /** The alias every read and write goes through */
+    static String aliasOf(String baseCollectionName) {
+        return baseCollectionName + ALIAS_SUFFIX;
+    }
+
+    /** The live collection, plus the one being rebuilt if there is one */
+    private List<String> writeTargets() {
+        String mirror = mirrorCollection.get();
+        return mirror == null
+            ? List.of(collectionName)
+            : List.of(collectionName, mirror);
+    }
+
+    private QuantizationConfig quantizationConfig() {
+        return quantization == VectorQuantization.BINARY
+            ? QuantizationConfig.newBuilder()
+                  .setBinary(binaryQuantization())
+                  .build()
+            : QuantizationConfig.newBuilder()
+                  .setScalar(scalarQuantization())
+                  .build();
+    }
+
+    private QuantizationConfigDiff quantizationConfigDiff() {
+        return switch (quantization) {
+            case NONE -> QuantizationConfigDiff.newBuilder()
+                .setDisabled(Disabled.getDefaultInstance())
+                .build();
+            case SCALAR -> QuantizationConfigDiff.newBuilder()
+                .setScalar(scalarQuantization())
+                .build();
+            case BINARY -> QuantizationConfigDiff.newBuilder()
+                .setBinary(binaryQuantization())
+                .build();
+        };
+    }
+
+    private static ScalarQuantization scalarQuantization() {
+        return ScalarQuantization.newBuilder()
+            .setType(QuantizationType.Int8)
+            // Ignore the most extreme 1% of values when picking the int8 range
+            .setQuantile(0.99f)
+            .setAlwaysRam(true)
+            .build();
+    }
+
+    private static BinaryQuantization binaryQuantization() {
+        return BinaryQuantization.newBuilder().setAlwaysRam(true).build();
+    }
+
+    /**
+     * Searches the quantized vectors for {@code oversampling} times the
+     * requested hits, then rescores those against the original vectors.
+     */
+    private SearchParams searchParams() {
+        SearchParams.Builder params = SearchParams.newBuilder();
+        if (quantization != VectorQuantization.NONE) {
+            params.setQuantization(
+                QuantizationSearchParams.newBuilder()
+                    .setRescore(true)
+                    .setOversampling(oversampling)
+            );
+        }
+        return params.build();
+    }
+
+    private void createKeywordIndex(
+        String collection,
+        String field,
+        boolean isTenant
+    ) {
+        await(
+            qdrantClient.createPayloadIndexAsync(
+                collection,
+                field,
+                PayloadSchemaType.Keyword,
+                PayloadIndexParams.newBuilder()
+                    .setKeywordIndexParams(
+                        KeywordIndexParams.newBuilder().setIsTenant(isTenant)
+                    )
+                    .build(),
+                true,
+                null,
+                null
+            )
+        );
+    }
+
+    /**
+     * Runs one tag search per query, all sent at once. Each search only
+     * sees the TAG points of the query's user, so its cost depends on that
+     * user's tag count rather than the size of the collection.
+     * A tag has one point per term and scores the best of them: hits are
+     * grouped by tag id with one hit per group, so a tag with many close
+     * synonyms takes one of the {@code topK} places, not several.
+     * @return tag-id-to-score maps, best first, in query order
+     */
+    List<Map<String, Double>> searchTags(
+        List<TagQuery> queries,
+        double threshold,
+        int topK
+    ) {
+        if (queries.isEmpty()) {
+            return List.of();
+        }
+
+        // Qdrant has no batch form of grouped search, so they run concurrently
+        List<Future<List<PointGroup>>> searches = new ArrayList<>(queries.size());
+        for (TagQuery query : queries) {
+            Filter userTags = Filter.newBuilder()
+                .addMust(
+                    matchKeyword(FIELD_TYPE, ISuggestionService.METADATA_TYPE_TAG)
+                )
+                .addMust(matchKeyword(FIELD_USER_ID, query.userId()))
+                .build();
+            searches.add(
+                qdrantClient.searchGroupsAsync(
+                    SearchPointGroups.newBuilder()
+                        .setCollectionName(collectionName)
+                        .addAllVector(toList(query.vector()))
+                        .setFilter(userTags)
+                        .setGroupBy(FIELD_TAG_ID)
+                        .setGroupSize(1)
+                        .setLimit(topK)
+                        .setScoreThreshold((float) threshold)
+                        .setParams(searchParams())
+                        .setWithPayload(enable(false))
+                        .build()
+                )
+            );
+        }
+
+        List<Map<String, Double>> scores = new ArrayList<>(searches.size());
+        for (Future<List<PointGroup>> search : searches) {
+            Map<String, Double> best = new HashMap<>();
+            for (PointGroup group : await(search)) {
+                best.put(
+                    group.getId().getStringValue(),
+                    (double) group.getHits(0).getScore()
+                );
+            }
+            scores.add(TagScores.top(best, topK));
+        }
+        return scores;
+    }
+
+    /**
+     * Reverse search: finds the user's content chunks closest to any of the
+     * given vectors, in one round trip.
+     * @return best score per content id, over all vectors and chunks
+     */
+    Map<String, Double> searchContents(
+        String userId,
+        List<float[]> vectors,
+        double threshold,
+        int limit
+    ) {
+        if (vectors.isEmpty()) {
+            return Map.of();
+        }
+        Filter userChunks = Filter.newBuilder()
+            .addMust(
+                matchKeyword(FIELD_TYPE, ISuggestionService.METADATA_TYPE_CHUNK)
+            )
+            .addMust(matchKeyword(FIELD_USER_ID, userId))
+            .build();
+        List<SearchPoints> searches = vectors
+            .stream()
+            .map(vector ->
+                SearchPoints.newBuilder()
+                    .setCollectionName(collectionName)
+                    .addAllVector(toList(vector))
+                    .setFilter(userChunks)
+                    .setLimit(limit)
+                    .setScoreThreshold((float) threshold)
+                    .setParams(searchParams())
+                    .setWithPayload(include(List.of(FIELD_CONTENT_ID)))
+                    .build()
+            )
+            .toList();
+
+        List<BatchResult> results = await(
+            qdrantClient.searchBatchAsync(collectionName, searches, null)
+        );
+        Map<String, Double> best = new HashMap<>();
+        for (BatchResult result : results) {
+            for (ScoredPoint hit : result.getResultList()) {
+                best.merge(
+                    hit.getPayloadMap().get(FIELD_CONTENT_ID).getStringValue(),
+                    (double) hit.getScore(),
+                    Math::max
+                );
+            }
+        }
+        return best;
+    }
+
+    /** Chunk points of the content with their vectors, in no particular order */
+    List<StoredChunk> getChunks(String contentId) {
+        Filter ofContent = Filter.newBuilder()
+            .addMust(
+                matchKeyword(FIELD_TYPE, ISuggestionService.METADATA_TYPE_CHUNK)
+            )
+            .addMust(matchKeyword(FIELD_CONTENT_ID, contentId))
+            .build();
+        List<StoredChunk> chunks = new ArrayList<>();
+        PointId offset = null;
+        do {
+            ScrollPoints.Builder scroll = ScrollPoints.newBuilder()
+                .setCollectionName(collectionName)
+                .setFilter(ofContent)
+                .setLimit(SCROLL_PAGE_SIZE)
+                .setWithPayload(enable(true))
+                .setWithVectors(WithVectorsSelectorFactory.enable(true));
+            if (offset != null) {
+                scroll.setOffset(offset);
+            }
+            ScrollResponse page = await(qdrantClient.scrollAsync(scroll.build()));
+            for (RetrievedPoint point : page.getResultList()) {
+                chunks.add(storedChunk(point));
+            }
+            offset = page.hasNextPageOffset() ? page.getNextPageOffset() : null;
+        } while (offset != null);
+        return chunks;
+    }
+
+    private static StoredChunk storedChunk(RetrievedPoint point) {
+        Map<String, Value> payload = point.getPayloadMap();
+        ChunkScores scores = null;
+        if (payload.containsKey(FIELD_TAG_SCORES)) {
+            Map<String, Double> tagScores = new HashMap<>();
+            payload
+                .get(FIELD_TAG_SCORES)
+                .getStructValue()
+                .getFieldsMap()
+                .forEach((tagId, score) -> tagScores.put(tagId, score.getDoubleValue()));
+            scores = new ChunkScores(
+                payload.get(FIELD_SCORE_BASIS).getStringValue(),
+                TagScores.top(tagScores, tagScores.size())
+            );
+        }
+        return new StoredChunk(
+            (int) payload.get(FIELD_CHUNK_INDEX).getIntegerValue(),
+            (int) payload.get(FIELD_CHUNK_START).getIntegerValue(),
+            (int) payload.get(FIELD_CHUNK_END).getIntegerValue(),
+            payload.get(FIELD_CHUNK_HASH).getStringValue(),
+            toArray(point.getVectors().getVector().getDataList()),
+            scores
+        );
+    }
+
+    /** Stored vectors of the given points; ids without a point are skipped. */
+    Map<String, float[]> getVectors(List<String> pointIds) {
+        if (pointIds.isEmpty()) {
+            return Map.of();
+        }
+        List<PointId> ids = pointIds
+            .stream()
+            .map(pointId -> id(UUID.fromString(pointId)))
+            .toList();
+        List<RetrievedPoint> points = await(
+            qdrantClient.retrieveAsync(collectionName, ids, false, true, null)
+        );
+
+        Map<String, float[]> vectors = new HashMap<>();
+        for (RetrievedPoint point : points) {
+            vectors.put(
+                point.getId().getUuid(),
+                toArray(point.getVectors().getVector().getDataList())
+            );
+        }
+        return vectors;
+    }
+
+    void upsert(List<PointStruct> points) {
+        writeTargets().forEach(collection -> upsertInto(collection, points));
+    }
+
+    void upsertInto(String collection, List<PointStruct> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+        await(qdrantClient.upsertAsync(collection, points));
+        log.debug("Upserted {} points into {}", points.size(), collection);
+    }
+
+    /** Removes every point that belongs to the contents, in one request */
+    void deleteByContents(Collection<String> contentIds) {
+        if (contentIds.isEmpty()) {
+            return;
+        }
+        Filter ofContents = Filter.newBuilder()
+            .addMust(matchKeywords(FIELD_CONTENT_ID, List.copyOf(contentIds)))
+            .build();
+        writeTargets().forEach(collection ->
+            await(qdrantClient.deleteAsync(collection, ofContents))
+        );
+    }
+
+    /**
+     * Removes chunk points left over from a longer, earlier version of each
+     * content, in one request.
+     * @param chunkCounts current number of chunks keyed by content id
+     */
+    void deleteChunksBeyond(Map<String, Integer> chunkCounts) {
+        if (chunkCounts.isEmpty()) {
+            return;
+        }
+        Filter.Builder stale = Filter.newBuilder();
+        chunkCounts.forEach((contentId, count) ->
+            stale.addShould(
+                filter(
+                    Filter.newBuilder()
+                        .addMust(
+                            matchKeyword(
+                                FIELD_TYPE,
+                                ISuggestionService.METADATA_TYPE_CHUNK
+                            )
+                        )
+                        .addMust(matchKeyword(FIELD_CONTENT_ID, contentId))
+                        .addMust(
+                            range(
+                                FIELD_CHUNK_INDEX,
+                                Range.newBuilder().setGte(count).build()
+                            )
+                        )
+                        .build()
+                )
+            )
+        );
+        Filter staleChunks = stale.build();
+        writeTargets().forEach(collection ->
+            await(qdrantClient.deleteAsync(collection, staleChunks))
+        );
+    }
+
+    void delete(List<String> pointIds) {
+        if (pointIds.isEmpty()) {
+            return;
+        }
+        List<PointId> ids = pointIds
+            .stream()
+            .map(pointId -> id(UUID.fromString(pointId)))
+            .toList();
+        writeTargets().forEach(collection ->
+            await(qdrantClient.deleteAsync(collection, ids))
+        );
+    }
+
+    /** Term point ids are derived from the tag id and the term's key */
+    static String termPointId(String tagId, String term) {
+        return UUID.nameUUIDFromBytes(
+            (tagId + ":" + TagTerms.key(term)).getBytes(
+                StandardCharsets.UTF_8
+            )
+        ).toString();
+    }
+
+    /** Chunk point ids are derived from the content id and chunk position */
+    static String chunkPointId(String contentId, int chunkIndex) {
+        return UUID.nameUUIDFromBytes(
+            (contentId + ":" + chunkIndex).getBytes(StandardCharsets.UTF_8)
+        ).toString();
+    }
+
+    static PointStruct point(
+        String id,
+        float[] vector,
+        Map<String, Value> payload
+    ) {
+        return PointStruct.newBuilder()
+            .setId(id(UUID.fromString(id)))
+            .setVectors(vectors(vector))
+            .putAllPayload(payload)
+            .build();
+    }
+
+    private static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    private static float[] toArray(List<Float> data) {
+        float[] vector = new float[data.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = data.get(i);
+        }
+        return vector;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while calling Qdrant", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Qdrant request failed", e.getCause());
+        }
+    }
+}
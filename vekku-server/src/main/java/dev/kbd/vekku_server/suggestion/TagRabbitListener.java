@@ -2,18 +2,34 @@ package dev.kbd.vekku_server.suggestion;
 
 import dev.kbd.vekku_server.infrastructure.config.RabbitMQConfig;
 import dev.kbd.vekku_server.suggestion.api.ISuggestionService;
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
 import dev.kbd.vekku_server.tag.api.TagEvents.TagCreatedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagDeletedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagUpdatedEvent;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+/**
+ * Keeps the tag term points in line with the tags. Events are not ordered
+ * (see {@link dev.kbd.vekku_server.infrastructure.outbox.Outbox}), so each
+ * one is checked against the tag as stored now: only terms the tag still
+ * has are added, and terms it no longer has are removed, whichever event
+ * comes first.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 class TagRabbitListener {
 
     private final ISuggestionService suggestionService;
+    private final ITagService tagService;
 
     @RabbitListener(queues = RabbitMQConfig.TAG_CREATION_QUEUE)
     public void handleTagCreatedEvent(TagCreatedEvent event) {
@@ -24,9 +40,76 @@ class TagRabbitListener {
             event.userId()
         );
         try {
-            suggestionService.saveTag(event.tagId(), event.tagName());
+            TagDTO tag = tagService.getTag(event.userId(), event.tagId());
+            if (tag == null) {
+                log.info("Tag {} was deleted since, skipping it", event.tagId());
+                return;
+            }
+            suggestionService.saveTag(
+                tag.id(),
+                tag.name(),
+                tag.synonyms(),
+                event.userId()
+            );
         } catch (Exception e) {
             log.error("Error saving tag to VectorStore: {}", event.tagId(), e);
         }
     }
+
+    @RabbitListener(queues = RabbitMQConfig.TAG_UPDATE_QUEUE)
+    public void handleTagUpdatedEvent(TagUpdatedEvent event) {
+        log.info(
+            "Received TagUpdatedEvent for tag ID: {}, userId: {}",
+            event.tagId(),
+            event.userId()
+        );
+        try {
+            TagDTO tag = tagService.getTag(event.userId(), event.tagId());
+            Set<String> current = tag == null
+                ? Set.of()
+                : TagTerms.of(tag.name(), tag.synonyms())
+                      .stream()
+                      .map(TagTerms::key)
+                      .collect(Collectors.toSet());
+            // A deleted tag keeps none: its added terms may outlive the deletion event
+            Set<String> removed = new HashSet<>(event.removedTerms());
+            if (tag == null) {
+                removed.addAll(event.addedTerms());
+            }
+            suggestionService.updateTagTerms(
+                event.tagId(),
+                event.userId(),
+                filter(event.addedTerms(), current, true),
+                filter(removed, current, false)
+            );
+        } catch (Exception e) {
+            log.error("Error updating tag in VectorStore: {}", event.tagId(), e);
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.TAG_DELETION_QUEUE)
+    public void handleTagDeletedEvent(TagDeletedEvent event) {
+        log.info(
+            "Received TagDeletedEvent for tag ID: {}, userId: {}",
+            event.tagId(),
+            event.userId()
+        );
+        try {
+            suggestionService.deleteTag(
+                event.tagId(),
+                event.userId(),
+                event.terms()
+            );
+        } catch (Exception e) {
+            log.error("Error deleting tag from VectorStore: {}", event.tagId(), e);
+        }
+    }
+
+    /** The terms whose key is, or is not, among the current ones */
+    private static Set<String> filter(Set<String> terms, Set<String> currentKeys, boolean current) {
+        return terms
+            .stream()
+            .filter(term -> currentKeys.contains(TagTerms.key(term)) == current)
+            .collect(Collectors.toSet());
+    }
 }
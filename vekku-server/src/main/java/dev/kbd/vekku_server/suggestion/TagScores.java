@@ -0,0 +1,21 @@
+package dev.kbd.vekku_server.suggestion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class TagScores {
+
+    private TagScores() {}
+
+    /** The {@code count} highest scores, best first */
+    static Map<String, Double> top(Map<String, Double> scores, int count) {
+        Map<String, Double> best = new LinkedHashMap<>();
+        scores
+            .entrySet()
+            .stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+            .limit(count)
+            .forEach(e -> best.put(e.getKey(), e.getValue()));
+        return best;
+    }
+}
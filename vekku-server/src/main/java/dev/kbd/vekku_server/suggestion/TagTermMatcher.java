@@ -0,0 +1,180 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.infrastructure.util.AhoCorasick;
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the tags whose name or synonym occurs verbatim in a text, with one
+ * Aho-Corasick automaton per user. Terms and text are compared by their
+ * {@link TagTerms#key}, so matching ignores case and whitespace differences,
+ * and only whole words count, so "art" does not match "party".
+ * <p>
+ * A user's terms are loaded on first use and kept current by the tag
+ * listeners. A change only marks the user's automaton stale; it is rebuilt
+ * from that user's terms on the next scan.
+ * <p>
+ * Loads read the database outside the map and are published with
+ * {@code putIfAbsent}, so they never block other users. Every change
+ * counts itself before it looks for the user's terms; a load that
+ * overlapped a change is dropped again, as it may predate the change,
+ * and the next scan loads anew.
+ * <p>
+ * Tag events reach only the node that consumes them, so loaded terms also
+ * record the user's tag set version they were loaded for, and a scan made
+ * for a newer version loads them again, as {@link TagVectorIndex} does.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TagTermMatcher {
+
+    private final ITagService tagService;
+    private final Map<String, UserTerms> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Long> changesByUser = new ConcurrentHashMap<>();
+
+    /** Built automaton and the tags of each of its patterns */
+    private record Automaton(AhoCorasick automaton, List<Set<String>> tagIds) {}
+
+    private static final class UserTerms {
+
+        private final long version;
+        private final Map<String, Set<String>> tagIdsByTerm = new HashMap<>();
+        private Automaton automaton;
+
+        UserTerms(long version) {
+            this.version = version;
+        }
+
+        synchronized void put(String tagId, Set<String> terms) {
+            for (String term : terms) {
+                String key = TagTerms.key(term);
+                if (!key.isEmpty()) {
+                    tagIdsByTerm
+                        .computeIfAbsent(key, k -> new HashSet<>())
+                        .add(tagId);
+                }
+            }
+            automaton = null;
+        }
+
+        synchronized void remove(String tagId, Set<String> terms) {
+            for (String term : terms) {
+                String key = TagTerms.key(term);
+                Set<String> tagIds = tagIdsByTerm.get(key);
+                if (tagIds != null && tagIds.remove(tagId) && tagIds.isEmpty()) {
+                    tagIdsByTerm.remove(key);
+                }
+            }
+            automaton = null;
+        }
+
+        synchronized Automaton automaton() {
+            if (automaton == null) {
+                List<String> patterns = new ArrayList<>(tagIdsByTerm.keySet());
+                automaton = new Automaton(
+                    AhoCorasick.of(patterns),
+                    patterns
+                        .stream()
+                        .map(term -> Set.copyOf(tagIdsByTerm.get(term)))
+                        .toList()
+                );
+            }
+            return automaton;
+        }
+    }
+
+    /**
+     * Ids of the user's tags with a term in the text
+     * @param tagSetVersion the user's current tag set version; terms
+     * loaded for an older one are loaded again
+     */
+    Set<String> match(String userId, long tagSetVersion, String text) {
+        Automaton current = termsOf(userId, tagSetVersion).automaton();
+        String normalizedText = TagTerms.key(text);
+        Set<String> tagIds = new LinkedHashSet<>();
+        current.automaton().scan(normalizedText, (pattern, start, end) -> {
+            if (
+                isWordBoundary(normalizedText, start - 1) &&
+                isWordBoundary(normalizedText, end)
+            ) {
+                tagIds.addAll(current.tagIds().get(pattern));
+            }
+        });
+        return tagIds;
+    }
+
+    /** Adds terms of a tag, if the user is currently loaded */
+    void put(String userId, String tagId, Set<String> terms) {
+        changesByUser.merge(userId, 1L, Long::sum);
+        UserTerms userTerms = byUser.get(userId);
+        if (userTerms != null) {
+            userTerms.put(tagId, terms);
+        }
+    }
+
+    void remove(String userId, String tagId, Set<String> terms) {
+        changesByUser.merge(userId, 1L, Long::sum);
+        UserTerms userTerms = byUser.get(userId);
+        if (userTerms != null) {
+            userTerms.remove(tagId, terms);
+        }
+    }
+
+    /**
+     * The user's terms for at least {@code version}, loaded by this thread
+     * if none are published
+     */
+    private UserTerms termsOf(String userId, long version) {
+        UserTerms userTerms = byUser.get(userId);
+        if (userTerms != null) {
+            if (userTerms.version >= version) {
+                return userTerms;
+            }
+            byUser.remove(userId, userTerms);
+        }
+        Long changes = changesByUser.get(userId);
+        UserTerms loaded = load(userId, version);
+        userTerms = byUser.putIfAbsent(userId, loaded);
+        if (userTerms != null) {
+            // Published meanwhile; an older one serves only older scans
+            return userTerms.version >= version ? userTerms : loaded;
+        }
+        // A change that missed the published terms was counted before
+        if (!Objects.equals(changes, changesByUser.get(userId))) {
+            byUser.remove(userId, loaded);
+        }
+        return loaded;
+    }
+
+    private UserTerms load(String userId, long version) {
+        UserTerms userTerms = new UserTerms(version);
+        List<TagDTO> tags = tagService.getAllTags(userId);
+        for (TagDTO tag : tags) {
+            userTerms.put(tag.id(), TagTerms.of(tag.name(), tag.synonyms()));
+        }
+        log.info("Loaded terms of {} tags for user {}", tags.size(), userId);
+        return userTerms;
+    }
+
+    private static boolean isWordBoundary(String text, int index) {
+        return (
+            index < 0 ||
+            index >= text.length() ||
+            !Character.isLetterOrDigit(text.charAt(index))
+        );
+    }
+}
@@ -0,0 +1,577 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import jakarta.annotation.PostConstruct;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of each user's tag term vectors, so suggestions can be
+ * scored without a round trip to Qdrant.
+ * <p>
+ * A user's index is loaded on first use and kept current by the tag
+ * listeners. Users with more tags than {@code vekku.suggestion.tag-index.max-tags}
+ * are never loaded; their searches go to Qdrant's HNSW index instead.
+ * <p>
+ * Each user's entry is a future that is published before the load runs,
+ * so concurrent searches share one load and the load itself runs outside
+ * the map. A change that arrives while a load runs drops the entry, as
+ * the load may have read the tags before it; the next search loads again.
+ * <p>
+ * Tag events reach only the node that consumes them, so each entry also
+ * records the user's tag set version it was loaded for. A search made
+ * for a newer version drops the entry and loads again. The listeners bump
+ * the version after they wrote Qdrant, so that load sees their vectors.
+ * <p>
+ * Quantized indexes keep only the compressed rows. Their candidates are
+ * rescored against the float32 vectors fetched from Qdrant, in one request
+ * for all queries of a search.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TagVectorIndex {
+
+    // Marks users that are too large to keep in memory
+    private static final UserTagVectors NOT_INDEXED = new UserTagVectors(
+        VectorQuantization.NONE,
+        1
+    );
+
+    private final ITagService tagService;
+    private final SuggestionVectorStore suggestionVectorStore;
+    private final Map<String, Entry> byUser = new ConcurrentHashMap<>();
+
+    @Value("${vekku.suggestion.tag-index.max-tags}")
+    private int maxTagsPerUser;
+
+    @Value("${vekku.suggestion.quantization.mode}")
+    private VectorQuantization quantization;
+
+    @Value("${vekku.suggestion.quantization.oversampling}")
+    private double oversampling;
+
+    @PostConstruct
+    void logKernel() {
+        if (DotProducts.SIMD) {
+            log.info("Tag index dot products use the {} kernel", DotProducts.kernel());
+        } else {
+            log.info(
+                "Tag index dot products use the scalar kernel; start the JVM with --add-modules jdk.incubator.vector for SIMD"
+            );
+        }
+    }
+
+    /** A user's vectors and the tag set version they were loaded for */
+    private record Entry(long version, CompletableFuture<UserTagVectors> vectors) {}
+
+    /**
+     * Scores each query vector against the user's tags.
+     * @param tagSetVersion the user's current tag set version; vectors
+     * loaded for an older one are loaded again
+     * @return one tag-id-to-score map per query, best first, or empty if the
+     * user is not served from memory and the caller should ask Qdrant
+     */
+    Optional<List<Map<String, Double>>> search(
+        String userId,
+        long tagSetVersion,
+        List<float[]> queryVectors,
+        double threshold,
+        int topK
+    ) {
+        UserTagVectors vectors = vectorsOf(userId, tagSetVersion);
+        if (vectors == NOT_INDEXED) {
+            return Optional.empty();
+        }
+        List<float[]> queries = queryVectors
+            .stream()
+            .map(TagVectorIndex::normalized)
+            .toList();
+        List<Map<String, Double>> results = new ArrayList<>(queries.size());
+        if (!vectors.quantized()) {
+            for (float[] query : queries) {
+                results.add(vectors.search(query, threshold, topK));
+            }
+            return Optional.of(results);
+        }
+
+        List<Map<String, String>> candidates = new ArrayList<>(queries.size());
+        Set<String> pointIds = new HashSet<>();
+        for (float[] query : queries) {
+            Map<String, String> tagIdByPointId = vectors.candidates(query, topK);
+            candidates.add(tagIdByPointId);
+            pointIds.addAll(tagIdByPointId.keySet());
+        }
+        Map<String, float[]> stored = new HashMap<>();
+        suggestionVectorStore
+            .getVectors(new ArrayList<>(pointIds))
+            .forEach((pointId, vector) -> stored.put(pointId, normalized(vector)));
+        for (int i = 0; i < queries.size(); i++) {
+            results.add(
+                UserTagVectors.rescore(
+                    queries.get(i),
+                    candidates.get(i),
+                    stored,
+                    threshold,
+                    topK
+                )
+            );
+        }
+        return Optional.of(results);
+    }
+
+    /** Adds or replaces a term vector, if the user is currently loaded. */
+    void put(String userId, String tagId, String pointId, float[] vector) {
+        Entry entry = byUser.get(userId);
+        if (entry == null) {
+            return;
+        }
+        UserTagVectors vectors = loaded(entry.vectors());
+        if (vectors == null) {
+            byUser.remove(userId, entry);
+            return;
+        }
+        if (vectors == NOT_INDEXED) {
+            return;
+        }
+        if (!vectors.put(pointId, tagId, normalized(vector), maxTagsPerUser)) {
+            log.info("User {} outgrew the in-memory tag index", userId);
+            byUser.replace(
+                userId,
+                entry,
+                new Entry(entry.version(), CompletableFuture.completedFuture(NOT_INDEXED))
+            );
+        }
+    }
+
+    void remove(String userId, String pointId) {
+        Entry entry = byUser.get(userId);
+        if (entry == null) {
+            return;
+        }
+        UserTagVectors vectors = loaded(entry.vectors());
+        if (vectors == null || vectors == NOT_INDEXED) {
+            // A user that was too large may fit again; the next search counts
+            byUser.remove(userId, entry);
+            return;
+        }
+        vectors.remove(pointId);
+    }
+
+    /** Forgets every user, e.g. after the live collection was replaced */
+    void clear() {
+        byUser.clear();
+    }
+
+    /**
+     * The user's vectors for at least {@code version}, loaded by this thread
+     * if no other got there first
+     */
+    private UserTagVectors vectorsOf(String userId, long version) {
+        while (true) {
+            Entry entry = byUser.get(userId);
+            if (entry != null && entry.version() < version) {
+                byUser.remove(userId, entry);
+                continue;
+            }
+            if (entry == null) {
+                Entry loading = new Entry(version, new CompletableFuture<>());
+                entry = byUser.putIfAbsent(userId, loading);
+                if (entry != null) {
+                    continue;
+                }
+                try {
+                    loading.vectors().complete(load(userId));
+                } catch (RuntimeException e) {
+                    byUser.remove(userId, loading);
+                    loading.vectors().completeExceptionally(e);
+                    throw e;
+                }
+                return loading.vectors().join();
+            }
+            return entry.vectors().join();
+        }
+    }
+
+    /** The entry's vectors, or null while they load or if the load failed */
+    private static UserTagVectors loaded(CompletableFuture<UserTagVectors> entry) {
+        return entry.isDone() && !entry.isCompletedExceptionally()
+            ? entry.join()
+            : null;
+    }
+
+    private UserTagVectors load(String userId) {
+        if (tagService.countTags(userId) > maxTagsPerUser) {
+            return NOT_INDEXED;
+        }
+        // One point per term: the tag name and each synonym
+        Map<String, String> tagIdByPointId = new HashMap<>();
+        for (TagDTO tag : tagService.getAllTags(userId)) {
+            for (String term : TagTerms.of(tag.name(), tag.synonyms())) {
+                tagIdByPointId.put(
+                    SuggestionVectorStore.termPointId(tag.id(), term),
+                    tag.id()
+                );
+            }
+        }
+        Map<String, float[]> stored = suggestionVectorStore.getVectors(
+            new ArrayList<>(tagIdByPointId.keySet())
+        );
+
+        List<String> pointIds = new ArrayList<>(stored.keySet());
+        UserTagVectors vectors = new UserTagVectors(quantization, oversampling);
+        vectors.putAll(
+            pointIds,
+            pointIds.stream().map(tagIdByPointId::get).toList(),
+            pointIds.stream().map(stored::get).map(TagVectorIndex::normalized).toList()
+        );
+        log.info("Loaded {} term vectors for user {}", stored.size(), userId);
+        return vectors;
+    }
+
+    private static float[] normalized(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] result = new float[vector.length];
+        if (norm == 0) {
+            return result;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) (vector[i] / norm);
+        }
+        return result;
+    }
+
+    /**
+     * One user's term vectors, stored back to back in a single array so a
+     * search is a linear scan over contiguous memory. Vectors are unit
+     * length, which makes the dot product the cosine similarity.
+     * Writers copy the arrays; readers always see a consistent snapshot.
+     * Writers also keep the row of each point and the number of rows of
+     * each tag, so a change never scans the rows. A removed row is filled
+     * with the last one, as the order of rows does not matter.
+     * <p>
+     * Quantized indexes keep only a compressed copy of each row: one int8
+     * code per dimension plus a per-row scale, or one sign bit per
+     * dimension, a quarter or a thirty-second of the memory. Their search
+     * is split in two: {@link #candidates} scans the compressed rows for
+     * {@code oversampling} times the requested tags, and {@link #rescore}
+     * scores all terms of those tags against float32 vectors the caller
+     * fetched. Only the rescored similarities are compared with the
+     * threshold and returned, as the compressed ones can be off by more
+     * than the gap between two close tags.
+     */
+    static final class UserTagVectors {
+
+        /**
+         * @param data float32 rows, or null if quantized
+         * @param codes int8 rows, or null unless scalar quantized
+         * @param scales per-row factor that turns codes back into values
+         * @param bits sign bits, {@code words(dimension)} longs per row, or
+         * null unless binary quantized
+         */
+        private record Snapshot(
+            String[] pointIds,
+            String[] tagIds,
+            float[] data,
+            byte[] codes,
+            float[] scales,
+            long[] bits,
+            int dimension
+        ) {}
+
+        private final VectorQuantization quantization;
+        private final double oversampling;
+        private volatile Snapshot snapshot;
+        // Guarded by this; readers only use the snapshot
+        private final Map<String, Integer> rowByPointId = new HashMap<>();
+        private final Map<String, Integer> rowsByTagId = new HashMap<>();
+
+        UserTagVectors(VectorQuantization quantization, double oversampling) {
+            this.quantization = quantization;
+            this.oversampling = oversampling;
+            this.snapshot = new Snapshot(
+                new String[0],
+                new String[0],
+                quantization == VectorQuantization.NONE ? new float[0] : null,
+                quantization == VectorQuantization.SCALAR ? new byte[0] : null,
+                quantization == VectorQuantization.SCALAR ? new float[0] : null,
+                quantization == VectorQuantization.BINARY ? new long[0] : null,
+                0
+            );
+        }
+
+        boolean quantized() {
+            return quantization != VectorQuantization.NONE;
+        }
+
+        synchronized int tagCount() {
+            return rowsByTagId.size();
+        }
+
+        /**
+         * Adds or replaces one row, unless it would be the term of a new tag
+         * beyond {@code maxTags}.
+         * @return false if the row was not added for that reason
+         */
+        synchronized boolean put(
+            String pointId,
+            String tagId,
+            float[] vector,
+            int maxTags
+        ) {
+            if (!rowsByTagId.containsKey(tagId) && rowsByTagId.size() >= maxTags) {
+                return false;
+            }
+            putAll(List.of(pointId), List.of(tagId), List.of(vector));
+            return true;
+        }
+
+        /** Adds or replaces many rows with a single copy of the arrays */
+        synchronized void putAll(
+            List<String> newPointIds,
+            List<String> newTagIds,
+            List<float[]> vectors
+        ) {
+            if (vectors.isEmpty()) {
+                return;
+            }
+            Snapshot current = snapshot;
+            int dimension = vectors.get(0).length;
+            int words = words(dimension);
+            int rows = current.pointIds().length;
+            int[] targetRows = new int[vectors.size()];
+            int newRows = rows;
+            for (int i = 0; i < vectors.size(); i++) {
+                Integer row = rowByPointId.get(newPointIds.get(i));
+                if (row == null) {
+                    row = newRows++;
+                    rowByPointId.put(newPointIds.get(i), row);
+                    rowsByTagId.merge(newTagIds.get(i), 1, Integer::sum);
+                }
+                targetRows[i] = row;
+            }
+
+            String[] pointIds = Arrays.copyOf(current.pointIds(), newRows);
+            String[] tagIds = Arrays.copyOf(current.tagIds(), newRows);
+            float[] data = current.data() == null
+                ? null
+                : Arrays.copyOf(current.data(), newRows * dimension);
+            byte[] codes = current.codes() == null
+                ? null
+                : Arrays.copyOf(current.codes(), newRows * dimension);
+            float[] scales = current.scales() == null
+                ? null
+                : Arrays.copyOf(current.scales(), newRows);
+            long[] bits = current.bits() == null
+                ? null
+                : Arrays.copyOf(current.bits(), newRows * words);
+            for (int i = 0; i < vectors.size(); i++) {
+                int row = targetRows[i];
+                float[] vector = vectors.get(i);
+                pointIds[row] = newPointIds.get(i);
+                tagIds[row] = newTagIds.get(i);
+                if (data != null) {
+                    System.arraycopy(vector, 0, data, row * dimension, dimension);
+                }
+                if (codes != null) {
+                    scales[row] = quantize(vector, codes, row * dimension);
+                }
+                if (bits != null) {
+                    signBits(vector, bits, row * words);
+                }
+            }
+            snapshot = new Snapshot(pointIds, tagIds, data, codes, scales, bits, dimension);
+        }
+
+        synchronized void remove(String pointId) {
+            Integer row = rowByPointId.remove(pointId);
+            if (row == null) {
+                return;
+            }
+            Snapshot current = snapshot;
+            int last = current.pointIds().length - 1;
+            int dimension = current.dimension();
+            rowsByTagId.computeIfPresent(current.tagIds()[row], (tagId, count) ->
+                count == 1 ? null : count - 1
+            );
+            if (row != last) {
+                rowByPointId.put(current.pointIds()[last], row);
+            }
+            snapshot = new Snapshot(
+                removeRow(current.pointIds(), row, 1),
+                removeRow(current.tagIds(), row, 1),
+                current.data() == null ? null : removeRow(current.data(), row, dimension),
+                current.codes() == null ? null : removeRow(current.codes(), row, dimension),
+                current.scales() == null ? null : removeRow(current.scales(), row, 1),
+                current.bits() == null ? null : removeRow(current.bits(), row, words(dimension)),
+                dimension
+            );
+        }
+
+        /**
+         * A tag scores the best similarity of any of its terms. Only for
+         * indexes that are not quantized.
+         */
+        Map<String, Double> search(float[] query, double threshold, int topK) {
+            Snapshot current = snapshot;
+            String[] tagIds = current.tagIds();
+            int dimension = current.dimension();
+            Map<String, Double> hits = new HashMap<>();
+            for (int row = 0; row < tagIds.length; row++) {
+                float score = DotProducts.dot(query, current.data(), row * dimension, dimension);
+                if (score >= threshold) {
+                    hits.merge(tagIds[row], (double) score, Math::max);
+                }
+            }
+            return TagScores.top(hits, topK);
+        }
+
+        /**
+         * Every term of the {@code oversampling * topK} tags whose best term
+         * scores highest on the compressed rows
+         * @return tag id by point id
+         */
+        Map<String, String> candidates(float[] query, int topK) {
+            Snapshot current = snapshot;
+            Set<String> tags = approximateTop(
+                current,
+                query,
+                (int) Math.ceil(topK * oversampling)
+            );
+            Map<String, String> tagIdByPointId = new HashMap<>();
+            for (int row = 0; row < current.tagIds().length; row++) {
+                if (tags.contains(current.tagIds()[row])) {
+                    tagIdByPointId.put(current.pointIds()[row], current.tagIds()[row]);
+                }
+            }
+            return tagIdByPointId;
+        }
+
+        /**
+         * Scores the candidates against their float32 unit vectors; a
+         * candidate without a vector is left out
+         */
+        static Map<String, Double> rescore(
+            float[] query,
+            Map<String, String> tagIdByPointId,
+            Map<String, float[]> vectors,
+            double threshold,
+            int topK
+        ) {
+            Map<String, Double> hits = new HashMap<>();
+            tagIdByPointId.forEach((pointId, tagId) -> {
+                float[] vector = vectors.get(pointId);
+                if (vector == null) {
+                    return;
+                }
+                float score = DotProducts.dot(query, vector, 0, vector.length);
+                if (score >= threshold) {
+                    hits.merge(tagId, (double) score, Math::max);
+                }
+            });
+            return TagScores.top(hits, topK);
+        }
+
+        /** The {@code count} tags whose best term scores highest on the compressed rows */
+        private static Set<String> approximateTop(Snapshot current, float[] query, int count) {
+            String[] tagIds = current.tagIds();
+            int dimension = current.dimension();
+            int words = words(dimension);
+            long[] queryBits = null;
+            if (current.bits() != null) {
+                queryBits = new long[words];
+                signBits(query, queryBits, 0);
+            }
+
+            Map<String, Double> approximate = new HashMap<>();
+            for (int row = 0; row < tagIds.length; row++) {
+                // Fewer differing signs rank higher; only the order matters
+                double score = queryBits != null
+                    ? -hamming(queryBits, current.bits(), row * words)
+                    : current.scales()[row] *
+                      DotProducts.dot(query, current.codes(), row * dimension, dimension);
+                approximate.merge(tagIds[row], score, Math::max);
+            }
+            return TagScores.top(approximate, count).keySet();
+        }
+
+        /**
+         * Symmetric int8 quantization of one row: the largest magnitude maps
+         * to 127. Unit vectors have no outliers worth clipping.
+         * @return the scale to multiply codes by
+         */
+        private static float quantize(float[] vector, byte[] codes, int offset) {
+            float max = 0;
+            for (float v : vector) {
+                max = Math.max(max, Math.abs(v));
+            }
+            if (max == 0) {
+                return 0;
+            }
+            float scale = max / 127f;
+            for (int i = 0; i < vector.length; i++) {
+                codes[offset + i] = (byte) Math.round(vector[i] / scale);
+            }
+            return scale;
+        }
+
+        /** One bit per dimension, set where the value is positive */
+        private static void signBits(float[] vector, long[] bits, int offset) {
+            Arrays.fill(bits, offset, offset + words(vector.length), 0L);
+            for (int i = 0; i < vector.length; i++) {
+                if (vector[i] > 0) {
+                    bits[offset + i / Long.SIZE] |= 1L << (i % Long.SIZE);
+                }
+            }
+        }
+
+        private static int hamming(long[] query, long[] bits, int offset) {
+            int distance = 0;
+            for (int i = 0; i < query.length; i++) {
+                distance += Long.bitCount(query[i] ^ bits[offset + i]);
+            }
+            return distance;
+        }
+
+        private static int words(int dimension) {
+            return (dimension + Long.SIZE - 1) / Long.SIZE;
+        }
+
+        /**
+         * A copy of {@code source} one row shorter, with the last row moved
+         * into the removed one
+         */
+        private static <A> A removeRow(A source, int row, int width) {
+            int rows = Array.getLength(source) / width - 1;
+            @SuppressWarnings("unchecked")
+            A target = (A) Array.newInstance(
+                source.getClass().getComponentType(),
+                rows * width
+            );
+            System.arraycopy(source, 0, target, 0, rows * width);
+            if (row != rows) {
+                System.arraycopy(source, rows * width, target, row * width, width);
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package dev.kbd.vekku_server.suggestion;
+
+/**
+ * How stored vectors are compressed. Candidates are retrieved on the
+ * compressed form and the best of them are rescored at full precision.
+ */
+enum VectorQuantization {
+    /** float32, 4 bytes per dimension */
+    NONE,
+    /** int8 per dimension, 4x smaller */
+    SCALAR,
+    /** 1 bit per dimension, 32x smaller; needs oversampling to keep recall */
+    BINARY,
+}
@@ -1,24 +1,76 @@
 package dev.kbd.vekku_server.suggestion.api;
 
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.ContentToSuggest;
+import dev.kbd.vekku_server.suggestion.api.SuggestionDTOs.SuggestionPage;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public interface ISuggestionService {
     String METADATA_TYPE_TAG = "TAG";
-    String METADATA_TYPE_SUGGESTION = "SUGGESTION";
+    String METADATA_TYPE_CHUNK = "CHUNK";
+
+    double DEFAULT_THRESHOLD = 0.45;
+    int DEFAULT_COUNT = 10;
 
     Map<String, Double> createSuggestionsForContent(
         String contentId,
+        String userId,
         String content,
+        ContentType contentType,
         double threshold,
         int count
     );
 
-    Set<String> getKeywords(String content, int count);
+    /**
+     * Like {@link #createSuggestionsForContent} for a content that was
+     * suggested before and has since been edited. Only the chunks whose
+     * text changed are embedded again.
+     */
+    Map<String, Double> updateSuggestionsForContent(
+        String contentId,
+        String userId,
+        String content,
+        ContentType contentType,
+        double threshold,
+        int count
+    );
 
-    void deleteSuggestionsOfContent(String id);
+    /**
+     * Batch variant of {@link #createSuggestionsForContent}. All contents are
+     * chunked, embedded together and searched in one round trip. A tag's
+     * score is its best score over the chunks of a content.
+     * @return suggested tag scores keyed by content id
+     */
+    Map<String, Map<String, Double>> createSuggestionsForContents(
+        List<ContentToSuggest> contents,
+        double threshold,
+        int count
+    );
 
-    Map<String, Double> getSuggestionsOfContent(
+    /**
+     * Keywords of a text, weighed against the user's other contents.
+     * @return at most {@code count} keywords, best first
+     */
+    Set<String> getKeywords(String userId, String content, int count);
+
+    /** Removes the stored suggestions and chunk points of the contents */
+    void deleteSuggestionsOfContents(Collection<String> contentIds);
+
+    /**
+     * Semantic search over the user's stored content chunks.
+     * @return best chunk similarity per content id, best first
+     */
+    Map<String, Double> searchContents(String userId, String query, int limit);
+
+    /**
+     * Reads stored suggestions, best score first, one keyset page at a time.
+     * @param fromCursor a cursor of the previous page, or null for the first
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    SuggestionPage getSuggestionsOfContent(
         String contentId,
         String fromCursor,
         int limit,
@@ -26,5 +78,29 @@ public interface ISuggestionService {
         String userId
     );
 
-    void saveTag(String tagId, String tagName);
+    /**
+     * Stores one vector per term: the tag name and each synonym. Then
+     * suggests the new tag for the user's existing content, by searching
+     * their stored chunks with the term vectors.
+     */
+    void saveTag(
+        String tagId,
+        String tagName,
+        Set<String> synonyms,
+        String userId
+    );
+
+    /**
+     * Embeds only the added terms and drops only the removed ones. Added
+     * terms are matched against existing content like a new tag.
+     */
+    void updateTagTerms(
+        String tagId,
+        String userId,
+        Set<String> addedTerms,
+        Set<String> removedTerms
+    );
+
+    /** Drops the tag's term vectors and every stored suggestion of it */
+    void deleteTag(String tagId, String userId, Set<String> terms);
 }
@@ -0,0 +1,30 @@
+package dev.kbd.vekku_server.suggestion.api;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import java.util.List;
+
+public class SuggestionDTOs {
+
+    private SuggestionDTOs() {}
+
+    public record ContentToSuggest(
+        String contentId,
+        String userId,
+        String content,
+        ContentType contentType
+    ) {}
+
+    /** One suggested tag of a content, ordered by score */
+    public record SuggestionDTO(String tagId, double score, String modelVersion) {}
+
+    /**
+     * One page of a content's suggestions, best score first.
+     * @param nextCursor pass with direction "next" for the following page, null on the last one
+     * @param prevCursor pass with direction "prev" for the preceding page, null on the first one
+     */
+    public record SuggestionPage(
+        List<SuggestionDTO> suggestions,
+        String nextCursor,
+        String prevCursor
+    ) {}
+}
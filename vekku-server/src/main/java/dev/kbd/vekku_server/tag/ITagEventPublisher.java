@@ -1,7 +1,13 @@
 package dev.kbd.vekku_server.tag;
 
 import dev.kbd.vekku_server.tag.api.TagEvents.TagCreatedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagDeletedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagUpdatedEvent;
 
 public interface ITagEventPublisher {
     void publishTagCreated(TagCreatedEvent event);
+
+    void publishTagUpdated(TagUpdatedEvent event);
+
+    void publishTagDeleted(TagDeletedEvent event);
 }
@@ -0,0 +1,36 @@
+package dev.kbd.vekku_server.tag;
+
+import dev.kbd.vekku_server.infrastructure.outbox.Outbox;
+import dev.kbd.vekku_server.tag.api.TagEvents;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagCreatedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagDeletedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagUpdatedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class OutboxTagEventPublisher implements ITagEventPublisher {
+
+    private final Outbox outbox;
+
+    @Override
+    public void publishTagCreated(TagCreatedEvent event) {
+        log.info("Queueing TagCreatedEvent for tag ID: {}", event.tagId());
+        outbox.add(TagEvents.TAG_CREATED, event);
+    }
+
+    @Override
+    public void publishTagUpdated(TagUpdatedEvent event) {
+        log.info("Queueing TagUpdatedEvent for tag ID: {}", event.tagId());
+        outbox.add(TagEvents.TAG_UPDATED, event);
+    }
+
+    @Override
+    public void publishTagDeleted(TagDeletedEvent event) {
+        log.info("Queueing TagDeletedEvent for tag ID: {}", event.tagId());
+        outbox.add(TagEvents.TAG_DELETED, event);
+    }
+}
@@ -3,9 +3,8 @@ package dev.kbd.vekku_server.tag;
 import dev.kbd.vekku_server.tag.api.ITagContentService;
 import dev.kbd.vekku_server.tag.api.TagDTOs.LinkTagsToContentRequest;
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagContentDTO;
-import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagPage;
 import dev.kbd.vekku_server.tag.api.TagDTOs.UnlinkTagsFromContentRequest;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -39,7 +38,7 @@ class TagContentController {
     }
 
     @GetMapping
-    public ResponseEntity<List<TagDTO>> getTagsOfContent(
+    public ResponseEntity<TagPage> getTagsOfContent(
         @RequestParam(required = true) String contentId,
         @RequestParam(required = false) String from,
         @RequestParam(required = false, defaultValue = "10") int limit,
@@ -1,7 +1,11 @@
 package dev.kbd.vekku_server.tag;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -14,6 +18,42 @@ interface TagContentRepo
     extends
         JpaRepository<TagContentEntity, UUID>,
         JpaSpecificationExecutor<TagContentEntity> {
+    // Keyset pages of a content's links, oldest first, over idx_tag_contents_content_created
+
+    List<TagContentEntity> findByContentIdOrderByCreatedAtAscIdAsc(
+        UUID contentId,
+        Pageable pageable
+    );
+
+    List<TagContentEntity> findByContentIdOrderByCreatedAtDescIdDesc(
+        UUID contentId,
+        Pageable pageable
+    );
+
+    @Query(
+        "SELECT tce FROM TagContentEntity tce WHERE tce.contentId = :contentId " +
+            "AND (tce.createdAt, tce.id) > (:createdAt, :id) " +
+            "ORDER BY tce.createdAt ASC, tce.id ASC"
+    )
+    List<TagContentEntity> findPageAfter(
+        @Param("contentId") UUID contentId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
+    @Query(
+        "SELECT tce FROM TagContentEntity tce WHERE tce.contentId = :contentId " +
+            "AND (tce.createdAt, tce.id) < (:createdAt, :id) " +
+            "ORDER BY tce.createdAt DESC, tce.id DESC"
+    )
+    List<TagContentEntity> findPageBefore(
+        @Param("contentId") UUID contentId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
     @Modifying
     @Query(
         "DELETE FROM TagContentEntity tce WHERE tce.contentId = :contentId AND tce.tagId IN :tagIds"
@@ -22,4 +62,8 @@ interface TagContentRepo
         @Param("contentId") UUID contentId,
         @Param("tagIds") Set<UUID> tagIds
     );
+
+    @Modifying
+    @Query("DELETE FROM TagContentEntity tce WHERE tce.contentId IN :contentIds")
+    int deleteLinksOfContents(@Param("contentIds") Collection<UUID> contentIds);
 }
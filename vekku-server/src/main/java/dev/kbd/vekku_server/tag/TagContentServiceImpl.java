@@ -2,27 +2,33 @@ package dev.kbd.vekku_server.tag;
 
 import dev.kbd.vekku_server.content.api.ContentDTOs.ContentDTO;
 import dev.kbd.vekku_server.content.api.IContentService;
+import dev.kbd.vekku_server.infrastructure.util.KeysetCursor;
 import dev.kbd.vekku_server.tag.api.ITagContentService;
 import dev.kbd.vekku_server.tag.api.TagDTOs.LinkTagsToContentRequest;
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagContentDTO;
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagPage;
 import dev.kbd.vekku_server.tag.api.TagDTOs.UnlinkTagsFromContentRequest;
-import jakarta.persistence.criteria.Predicate;
-import java.time.Instant;
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 @Service
 @Transactional
@@ -34,6 +40,7 @@ class TagContentServiceImpl implements ITagContentService {
     private final TagContentRepo tagContentRepo;
     private final TagRepo tagRepo;
     private final TagMapper tagMapper;
+    private final EntityManager entityManager;
 
     @Override
     public TagContentDTO getTagContent(String id, String userId) {
@@ -58,7 +65,7 @@ class TagContentServiceImpl implements ITagContentService {
     }
 
     @Override
-    public List<TagDTO> getTagsOfContent(
+    public TagPage getTagsOfContent(
         String contentId,
         String from,
         int limit,
@@ -76,64 +83,75 @@ class TagContentServiceImpl implements ITagContentService {
             );
         }
 
-        // 2. Pagination & Filtering logic
+        // 2. One keyset page of links, plus one row to tell whether more follow
         UUID contentUuid = UUID.fromString(contentId);
+        boolean isPrev = "prev".equalsIgnoreCase(direction);
+        KeysetCursor cursor = StringUtils.hasText(from)
+            ? KeysetCursor.decode(from)
+            : null;
+        PageRequest pageable = PageRequest.of(0, limit + 1);
 
-        Specification<TagContentEntity> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("contentId"), contentUuid));
-
-            if (from != null) {
-                try {
-                    Instant cursor = Instant.parse(from);
-                    if ("next".equalsIgnoreCase(direction)) {
-                        predicates.add(
-                            cb.greaterThan(root.get("createdAt"), cursor)
-                        );
-                    } else if ("prev".equalsIgnoreCase(direction)) {
-                        predicates.add(
-                            cb.lessThan(root.get("createdAt"), cursor)
-                        );
-                    }
-                } catch (Exception e) {
-                    log.warn("Invalid cursor format for 'from': {}", from);
-                    // Decide if you want to throw an error or ignore the cursor
-                }
-            }
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-
-        Sort.Direction sortDirection = "prev".equalsIgnoreCase(direction)
-            ? Sort.Direction.DESC
-            : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(
-            0,
-            limit,
-            Sort.by(sortDirection, "createdAt")
-        );
-
-        // 3. Find tag-content links
-        Page<TagContentEntity> tagContentPage = tagContentRepo.findAll(
-            spec,
-            pageable
+        List<TagContentEntity> rows;
+        if (cursor == null) {
+            rows = isPrev
+                ? tagContentRepo.findByContentIdOrderByCreatedAtDescIdDesc(
+                      contentUuid,
+                      pageable
+                  )
+                : tagContentRepo.findByContentIdOrderByCreatedAtAscIdAsc(
+                      contentUuid,
+                      pageable
+                  );
+        } else {
+            rows = isPrev
+                ? tagContentRepo.findPageBefore(
+                      contentUuid,
+                      cursor.createdAt(),
+                      cursor.id(),
+                      pageable
+                  )
+                : tagContentRepo.findPageAfter(
+                      contentUuid,
+                      cursor.createdAt(),
+                      cursor.id(),
+                      pageable
+                  );
+        }
+        boolean hasMore = rows.size() > limit;
+        List<TagContentEntity> links = new ArrayList<>(
+            rows.subList(0, Math.min(limit, rows.size()))
         );
+        if (isPrev) {
+            Collections.reverse(links);
+        }
+        if (links.isEmpty()) {
+            return new TagPage(List.of(), null, null);
+        }
 
-        // 4. Extract tag IDs
-        List<UUID> tagIds = tagContentPage
-            .getContent()
+        // 3. Fetch the tags, in link order
+        Map<UUID, TagEntity> tagsById = new HashMap<>();
+        tagRepo
+            .findAllById(links.stream().map(TagContentEntity::getTagId).toList())
+            .forEach(tag -> tagsById.put(tag.getId(), tag));
+        List<TagDTO> tags = links
             .stream()
-            .map(TagContentEntity::getTagId)
-            .collect(Collectors.toList());
+            .map(link -> tagsById.get(link.getTagId()))
+            .filter(Objects::nonNull)
+            .map(tagMapper::toDTO)
+            .toList();
 
-        if (tagIds.isEmpty()) {
-            return List.of();
-        }
-
-        // 5. Fetch Tag entities
-        List<TagEntity> tags = tagRepo.findAllById(tagIds);
+        // Cursors point at links, which carry the list order
+        boolean hasNext = isPrev ? cursor != null : hasMore;
+        boolean hasPrev = isPrev ? hasMore : cursor != null;
+        return new TagPage(
+            tags,
+            hasNext ? cursorOf(links.getLast()) : null,
+            hasPrev ? cursorOf(links.getFirst()) : null
+        );
+    }
 
-        // 6. Map to DTOs and return
-        return tagMapper.toDTOs(tags);
+    private static String cursorOf(TagContentEntity link) {
+        return new KeysetCursor(link.getCreatedAt(), link.getId()).encode();
     }
 
     @Override
@@ -215,4 +233,39 @@ class TagContentServiceImpl implements ITagContentService {
             contentUuid
         );
     }
+
+    @Override
+    public void exportLinksOfUser(
+        String userId,
+        int fetchSize,
+        Consumer<TagContentDTO> consumer
+    ) {
+        try (
+            Stream<TagContentEntity> links = entityManager
+                .createQuery(
+                    "SELECT tce FROM TagContentEntity tce WHERE tce.userId = :userId",
+                    TagContentEntity.class
+                )
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+        ) {
+            links.forEach(link -> {
+                consumer.accept(tagMapper.toDTO(link));
+                entityManager.detach(link);
+            });
+        }
+    }
+
+    @Override
+    public void deleteLinksOfContents(Collection<String> contentIds) {
+        if (contentIds.isEmpty()) {
+            return;
+        }
+        int deleted = tagContentRepo.deleteLinksOfContents(
+            contentIds.stream().map(UUID::fromString).toList()
+        );
+        log.debug("Deleted {} tag links of {} contents", deleted, contentIds.size());
+    }
 }
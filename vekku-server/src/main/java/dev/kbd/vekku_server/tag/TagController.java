@@ -4,8 +4,8 @@ import dev.kbd.vekku_server.tag.api.ITagContentService;
 import dev.kbd.vekku_server.tag.api.ITagService;
 import dev.kbd.vekku_server.tag.api.TagDTOs.CreateTagRequest;
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagPage;
 import dev.kbd.vekku_server.tag.api.TagDTOs.UpdateTagRequest;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -36,7 +36,7 @@ class TagController {
     }
 
     @GetMapping
-    public List<TagDTO> getTags(
+    public TagPage getTags(
         @RequestParam(required = false, name = "from") String fromCursor,
         @RequestParam(required = false, defaultValue = "10") int limit,
         @RequestParam(required = false, defaultValue = "next") String dir,
@@ -51,9 +51,9 @@ class TagController {
             userId
         );
 
-        List<TagDTO> tags = tagService.getTags(userId, fromCursor, limit, dir);
+        TagPage tags = tagService.getTags(userId, fromCursor, limit, dir);
 
-        log.info("Retrieved {} tags", tags.size());
+        log.info("Retrieved {} tags", tags.tags().size());
         return tags;
     }
 
@@ -6,28 +6,60 @@ import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 interface TagRepo extends JpaRepository<TagEntity, UUID> {
     Optional<TagEntity> findByUserIdAndId(String userId, UUID id);
 
-    List<TagEntity> findByUserIdAndCreatedAtAfterOrderByCreatedAtAsc(
+    // Keyset pages, oldest first, over idx_tags_user_created
+
+    List<TagEntity> findByUserIdOrderByCreatedAtAscIdAsc(
         String userId,
-        LocalDateTime createdAt,
         Pageable pageable
     );
 
-    List<TagEntity> findByUserIdAndCreatedAtBeforeOrderByCreatedAtDesc(
+    List<TagEntity> findByUserIdOrderByCreatedAtDescIdDesc(
         String userId,
-        LocalDateTime createdAt,
         Pageable pageable
     );
 
-    List<TagEntity> findByUserIdOrderByCreatedAtAsc(String userId, Pageable pageable);
+    /** Rows listed after the cursor: newer ones, oldest first */
+    @Query(
+        "SELECT t FROM TagEntity t WHERE t.userId = :userId " +
+            "AND (t.createdAt, t.id) > (:createdAt, :id) " +
+            "ORDER BY t.createdAt ASC, t.id ASC"
+    )
+    List<TagEntity> findPageAfter(
+        @Param("userId") String userId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
 
-    List<TagEntity> findByUserIdOrderByCreatedAtDesc(
-        String userId,
+    /** Rows listed before the cursor: older ones, newest first */
+    @Query(
+        "SELECT t FROM TagEntity t WHERE t.userId = :userId " +
+            "AND (t.createdAt, t.id) < (:createdAt, :id) " +
+            "ORDER BY t.createdAt DESC, t.id DESC"
+    )
+    List<TagEntity> findPageBefore(
+        @Param("userId") String userId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
+    List<TagEntity> findByUserId(String userId);
+
+    long countByUserId(String userId);
+
+    /** One keyset page of the whole table, in id order */
+    @Query("SELECT t FROM TagEntity t WHERE t.id > :afterId ORDER BY t.id")
+    List<TagEntity> findPageByIdAfter(
+        @Param("afterId") UUID afterId,
         Pageable pageable
     );
 }
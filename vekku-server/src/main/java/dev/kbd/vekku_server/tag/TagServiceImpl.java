@@ -1,18 +1,31 @@
 package dev.kbd.vekku_server.tag;
 
+import dev.kbd.vekku_server.infrastructure.util.KeysetCursor;
 import dev.kbd.vekku_server.tag.api.ITagService;
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagPage;
 import dev.kbd.vekku_server.tag.api.TagEvents.TagCreatedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagDeletedEvent;
+import dev.kbd.vekku_server.tag.api.TagEvents.TagUpdatedEvent;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Service
@@ -21,8 +34,10 @@ import org.springframework.util.StringUtils;
 class TagServiceImpl implements ITagService {
 
     final TagRepo tagRepository;
+    final TagSetVersionRepo tagSetVersionRepo;
     final TagMapper mapper;
     final ITagEventPublisher eventPublisher;
+    final EntityManager entityManager;
 
     @Override
     public TagDTO getTag(String userId, String id) {
@@ -35,7 +50,7 @@ class TagServiceImpl implements ITagService {
     }
 
     @Override
-    public List<TagDTO> getTags(
+    public TagPage getTags(
         String userId,
         String fromCursor,
         int limit,
@@ -49,56 +64,118 @@ class TagServiceImpl implements ITagService {
             dir
         );
 
-        boolean isNext = !"prev".equalsIgnoreCase(dir);
-        PageRequest pageable = PageRequest.of(0, limit);
+        boolean isPrev = "prev".equalsIgnoreCase(dir);
+        KeysetCursor from = StringUtils.hasText(fromCursor)
+            ? KeysetCursor.decode(fromCursor)
+            : null;
+        // One extra row tells whether another page follows
+        PageRequest pageable = PageRequest.of(0, limit + 1);
 
-        List<TagEntity> tags;
-
-        if (!StringUtils.hasText(fromCursor)) {
-            tags = isNext
-                ? tagRepository.findByUserIdOrderByCreatedAtAsc(
+        List<TagEntity> rows;
+        if (from == null) {
+            rows = isPrev
+                ? tagRepository.findByUserIdOrderByCreatedAtDescIdDesc(
                       userId,
                       pageable
                   )
-                : tagRepository.findByUserIdOrderByCreatedAtDesc(
+                : tagRepository.findByUserIdOrderByCreatedAtAscIdAsc(
                       userId,
                       pageable
                   );
         } else {
-            TagEntity cursorEntity = tagRepository
-                .findById(UUID.fromString(fromCursor))
-                .orElse(null);
-            if (cursorEntity == null) {
-                return Collections.emptyList();
-            }
-
-            if (isNext) {
-                tags =
-                    tagRepository.findByUserIdAndCreatedAtAfterOrderByCreatedAtAsc(
-                        userId,
-                        cursorEntity.getCreatedAt(),
-                        pageable
-                    );
-            } else {
-                tags =
-                    tagRepository.findByUserIdAndCreatedAtBeforeOrderByCreatedAtDesc(
-                        userId,
-                        cursorEntity.getCreatedAt(),
-                        pageable
-                    );
-            }
+            rows = isPrev
+                ? tagRepository.findPageBefore(
+                      userId,
+                      from.createdAt(),
+                      from.id(),
+                      pageable
+                  )
+                : tagRepository.findPageAfter(
+                      userId,
+                      from.createdAt(),
+                      from.id(),
+                      pageable
+                  );
+        }
+        boolean hasMore = rows.size() > limit;
+        List<TagEntity> page = new ArrayList<>(
+            rows.subList(0, Math.min(limit, rows.size()))
+        );
+        if (isPrev) {
+            // Fetched nearest first, shown oldest first
+            Collections.reverse(page);
         }
 
-        List<TagDTO> tagDTOs = tags.stream().map(mapper::toDTO).toList();
+        boolean hasNext = isPrev ? from != null : hasMore;
+        boolean hasPrev = isPrev ? hasMore : from != null;
+        return new TagPage(
+            page.stream().map(mapper::toDTO).toList(),
+            hasNext && !page.isEmpty() ? cursorOf(page.getLast()) : null,
+            hasPrev && !page.isEmpty() ? cursorOf(page.getFirst()) : null
+        );
+    }
+
+    private static String cursorOf(TagEntity tag) {
+        return new KeysetCursor(tag.getCreatedAt(), tag.getId()).encode();
+    }
 
-        if (!isNext) {
-            Collections.reverse(tagDTOs);
-        }
+    @Override
+    public List<TagDTO> getAllTags(String userId) {
+        log.info("Get all tags of user {}", userId);
+        return mapper.toDTOs(tagRepository.findByUserId(userId));
+    }
+
+    @Override
+    public long countTags(String userId) {
+        return tagRepository.countByUserId(userId);
+    }
+
+    @Override
+    public long countAllTags() {
+        return tagRepository.count();
+    }
 
-        return tagDTOs;
+    @Override
+    @Transactional(readOnly = true)
+    public List<TagDTO> getAllTagsAfter(String afterId, int limit) {
+        UUID after = StringUtils.hasText(afterId)
+            ? UUID.fromString(afterId)
+            : new UUID(0, 0);
+        return tagRepository
+            .findPageByIdAfter(after, PageRequest.of(0, limit))
+            .stream()
+            .map(mapper::toDTO)
+            .toList();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportTagsOfUser(
+        String userId,
+        int fetchSize,
+        Consumer<TagDTO> consumer
+    ) {
+        try (
+            Stream<TagEntity> tags = entityManager
+                .createQuery(
+                    "SELECT t FROM TagEntity t WHERE t.userId = :userId " +
+                        "ORDER BY t.createdAt, t.id",
+                    TagEntity.class
+                )
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+        ) {
+            tags.forEachOrdered(tag -> {
+                consumer.accept(mapper.toDTO(tag));
+                entityManager.detach(tag);
+            });
+        }
+    }
+
+    @Override
+    @Transactional
     public TagDTO createTag(
         String userId,
         String tagName,
@@ -117,12 +194,14 @@ class TagServiceImpl implements ITagService {
             .build();
         TagEntity saved = tagRepository.save(toSave);
         log.info("Tag created with id {}", saved.getId());
+        tagSetVersionRepo.bump(userId);
 
         eventPublisher.publishTagCreated(
             new TagCreatedEvent(
                 saved.getId().toString(),
                 saved.getName(),
-                saved.getUserId()
+                saved.getUserId(),
+                new HashSet<>(saved.getSynonyms())
             )
         );
 
@@ -130,6 +209,7 @@ class TagServiceImpl implements ITagService {
     }
 
     @Override
+    @Transactional
     public TagDTO updateTag(
         String userId,
         String tagId,
@@ -141,6 +221,7 @@ class TagServiceImpl implements ITagService {
         TagEntity tagEntity = tagRepository
             .findByUserIdAndId(userId, UUID.fromString(tagId))
             .orElseThrow(() -> new IllegalArgumentException("Tag not found"));
+        Set<String> termsBefore = termsOf(tagEntity);
 
         if (StringUtils.hasText(tagName)) {
             tagEntity.setName(tagName);
@@ -156,10 +237,28 @@ class TagServiceImpl implements ITagService {
         tagEntity.setSynonyms(new ArrayList<>(currentSynonyms));
 
         TagEntity updatedTag = tagRepository.save(tagEntity);
+        tagSetVersionRepo.bump(userId);
+
+        // Publish only the terms that changed, ignoring case and spacing
+        Set<String> termsAfter = termsOf(updatedTag);
+        Set<String> added = TagTerms.added(termsBefore, termsAfter);
+        Set<String> removed = TagTerms.removed(termsBefore, termsAfter);
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            eventPublisher.publishTagUpdated(
+                new TagUpdatedEvent(tagId, userId, added, removed)
+            );
+        }
+
         return mapper.toDTO(updatedTag);
     }
 
+    /** The tag name and its synonyms */
+    private static Set<String> termsOf(TagEntity tag) {
+        return TagTerms.of(tag.getName(), tag.getSynonyms());
+    }
+
     @Override
+    @Transactional
     public void deleteTag(String subject, String tagId) {
         log.info("Delete tag for user {} with id {}", subject, tagId);
         TagEntity tagEntity = tagRepository
@@ -170,5 +269,25 @@ class TagServiceImpl implements ITagService {
                 )
             );
         tagRepository.delete(tagEntity);
+        tagSetVersionRepo.bump(subject);
+
+        eventPublisher.publishTagDeleted(
+            new TagDeletedEvent(tagId, subject, termsOf(tagEntity))
+        );
+    }
+
+    @Override
+    public Map<String, Long> getTagSetVersions(Collection<String> userIds) {
+        Map<String, Long> versions = new HashMap<>();
+        userIds.forEach(userId -> versions.put(userId, 0L));
+        tagSetVersionRepo
+            .findAllById(userIds)
+            .forEach(row -> versions.put(row.getUserId(), row.getVersion()));
+        return versions;
+    }
+
+    @Override
+    public void bumpTagSetVersion(String userId) {
+        tagSetVersionRepo.bump(userId);
     }
 }
@@ -0,0 +1,29 @@
+package dev.kbd.vekku_server.tag;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Per-user counter, bumped on every change to the user's tags */
+@Entity
+@Table(name = "tag_set_versions")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+class TagSetVersionEntity {
+
+    @Id
+    @Column(name = "fk_user_id")
+    private String userId;
+
+    @Column(nullable = false)
+    private long version;
+}
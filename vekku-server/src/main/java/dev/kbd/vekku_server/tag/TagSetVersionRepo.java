@@ -0,0 +1,22 @@
+package dev.kbd.vekku_server.tag;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+interface TagSetVersionRepo extends JpaRepository<TagSetVersionEntity, String> {
+    /** Atomic increment, creating the row at version 1 */
+    @Transactional
+    @Modifying
+    @Query(
+        nativeQuery = true,
+        value = "INSERT INTO tag_set_versions (fk_user_id, version) " +
+            "VALUES (:userId, 1) ON CONFLICT (fk_user_id) " +
+            "DO UPDATE SET version = tag_set_versions.version + 1"
+    )
+    void bump(@Param("userId") String userId);
+}
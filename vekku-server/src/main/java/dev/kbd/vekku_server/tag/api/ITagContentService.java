@@ -2,13 +2,15 @@ package dev.kbd.vekku_server.tag.api;
 
 import dev.kbd.vekku_server.tag.api.TagDTOs.LinkTagsToContentRequest;
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagContentDTO;
-import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagPage;
 import dev.kbd.vekku_server.tag.api.TagDTOs.UnlinkTagsFromContentRequest;
-import java.util.List;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface ITagContentService {
     TagContentDTO getTagContent(String id, String userId);
-    List<TagDTO> getTagsOfContent(
+    /** Tags linked to a content, in link order, one keyset page at a time */
+    TagPage getTagsOfContent(
         String contentId,
         String from,
         int limit,
@@ -20,4 +22,16 @@ public interface ITagContentService {
         UnlinkTagsFromContentRequest request,
         String userId
     );
+    /**
+     * Hands the user's tag links to the consumer one at a time, through a
+     * forward-only cursor that fetches {@code fetchSize} rows per round
+     * trip. Runs in the caller's transaction, or one of its own.
+     */
+    void exportLinksOfUser(
+        String userId,
+        int fetchSize,
+        Consumer<TagContentDTO> consumer
+    );
+    /** Drops every tag link of the contents, in one statement */
+    void deleteLinksOfContents(Collection<String> contentIds);
 }
@@ -1,19 +1,53 @@
 package dev.kbd.vekku_server.tag.api;
 
 import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagPage;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ITagService {
     TagDTO getTag(String userId, String id);
 
-    List<TagDTO> getTags(
+    /**
+     * The user's tags, oldest first, one keyset page at a time.
+     * @param fromCursor a cursor of the previous page, or null for the first
+     */
+    TagPage getTags(
         String userId,
         String fromCursor,
         int limit,
         String dir
     );
 
+    /** Every tag of the user, unpaged. Check {@link #countTags} first. */
+    List<TagDTO> getAllTags(String userId);
+
+    long countTags(String userId);
+
+    long countAllTags();
+
+    /**
+     * Up to {@code limit} tags of every user with an id greater than
+     * {@code afterId}, in id order. Each call reads in a short transaction
+     * of its own, so a caller paging through every tag holds no snapshot.
+     * @param afterId exclusive start, or null for the beginning
+     */
+    List<TagDTO> getAllTagsAfter(String afterId, int limit);
+
+    /**
+     * Hands the user's tags to the consumer one at a time, oldest first,
+     * through a forward-only cursor that fetches {@code fetchSize} rows per
+     * round trip. Runs in the caller's transaction, or a read-only one.
+     */
+    void exportTagsOfUser(
+        String userId,
+        int fetchSize,
+        Consumer<TagDTO> consumer
+    );
+
     TagDTO createTag(String userId, String tagName, Set<String> synonyms);
 
     TagDTO updateTag(
@@ -25,4 +59,17 @@ public interface ITagService {
     );
 
     void deleteTag(String subject, String tagId);
+
+    /**
+     * Per-user counters that go up on every tag create, update and delete,
+     * so anything derived from a user's tags can be keyed by them.
+     * @return version by user id; 0 for users whose tags never changed
+     */
+    Map<String, Long> getTagSetVersions(Collection<String> userIds);
+
+    /**
+     * Bumps the user's tag set version without a tag change, for consumers
+     * that finish applying a change after it was made.
+     */
+    void bumpTagSetVersion(String userId);
 }
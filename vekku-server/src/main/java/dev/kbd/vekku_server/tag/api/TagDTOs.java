@@ -1,6 +1,7 @@
 package dev.kbd.vekku_server.tag.api;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -17,6 +18,17 @@ public class TagDTOs {
         LocalDateTime updatedAt
     ) {}
 
+    /**
+     * One page of a keyset-paged tag list.
+     * @param nextCursor pass with direction "next" for the following page, null on the last one
+     * @param prevCursor pass with direction "prev" for the preceding page, null on the first one
+     */
+    public record TagPage(
+        List<TagDTO> tags,
+        String nextCursor,
+        String prevCursor
+    ) {}
+
     public record TagContentDTO(
         String id,
         UUID tagId,
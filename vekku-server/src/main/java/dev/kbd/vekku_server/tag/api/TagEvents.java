@@ -1,14 +1,39 @@
 package dev.kbd.vekku_server.tag.api;
 
+import java.util.Set;
+
 public class TagEvents {
 
     public static final String TAG_CREATED = "tag.created";
+    public static final String TAG_UPDATED = "tag.updated";
+    public static final String TAG_DELETED = "tag.deleted";
 
     private TagEvents() {}
 
     public record TagCreatedEvent(
         String tagId,
         String tagName,
-        String userId
+        String userId,
+        Set<String> synonyms
+    ) {}
+
+    /**
+     * Terms are the tag name and its synonyms. Only the terms that changed
+     * are carried, so consumers never have to reprocess the whole tag, and
+     * they are compared by {@link TagTerms#key}: a removed term has no
+     * spelling left on the tag, and an added one had none before.
+     */
+    public record TagUpdatedEvent(
+        String tagId,
+        String userId,
+        Set<String> addedTerms,
+        Set<String> removedTerms
+    ) {}
+
+    /** Carries the tag's last terms, so consumers can drop what they derived */
+    public record TagDeletedEvent(
+        String tagId,
+        String userId,
+        Set<String> terms
     ) {}
 }
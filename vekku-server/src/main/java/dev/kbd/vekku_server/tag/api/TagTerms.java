@@ -0,0 +1,74 @@
+package dev.kbd.vekku_server.tag.api;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A tag's terms are its name and synonyms. Spellings that differ only in
+ * case or whitespace, like "AI" and "ai", are one term: they share a
+ * {@link #key}, under which the suggestion side stores and matches them.
+ * Adding or removing a spelling therefore only counts when no other
+ * spelling of the tag has the same key.
+ */
+public final class TagTerms {
+
+    private TagTerms() {}
+
+    /** Lowercase and trimmed, with every whitespace run as one space */
+    public static String key(String term) {
+        StringBuilder result = new StringBuilder(term.length());
+        boolean inSpace = false;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inSpace = true;
+                continue;
+            }
+            if (inSpace && !result.isEmpty()) {
+                result.append(' ');
+            }
+            inSpace = false;
+            result.append(c);
+        }
+        return result.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** The name and synonyms, the first spelling of each key, blank ones dropped */
+    public static Set<String> of(String name, Collection<String> synonyms) {
+        Map<String, String> spellingByKey = new LinkedHashMap<>();
+        spellingByKey.putIfAbsent(key(name), name);
+        synonyms.forEach(synonym -> spellingByKey.putIfAbsent(key(synonym), synonym));
+        spellingByKey.remove("");
+        return new LinkedHashSet<>(spellingByKey.values());
+    }
+
+    /** Terms of {@code after} whose key none of {@code before} has */
+    public static Set<String> added(Set<String> before, Set<String> after) {
+        return missing(after, before);
+    }
+
+    /** Terms of {@code before} whose key none of {@code after} has */
+    public static Set<String> removed(Set<String> before, Set<String> after) {
+        return missing(before, after);
+    }
+
+    private static Set<String> missing(Set<String> terms, Set<String> from) {
+        Set<String> keys = from
+            .stream()
+            .map(TagTerms::key)
+            .collect(Collectors.toCollection(HashSet::new));
+        Set<String> result = new LinkedHashSet<>();
+        for (String term : terms) {
+            if (!keys.contains(key(term))) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,4 @@
+-- EmbeddingCachePurger drops entries by age and keeps only the newest ones.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_embedding_cache_created_at
+    ON embedding_cache (created_at);
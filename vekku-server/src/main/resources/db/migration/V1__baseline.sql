@@ -0,0 +1,67 @@
+-- Schema as ddl-auto created it before migrations were introduced.
+-- Idempotent, so it also runs against databases that already have it.
+
+CREATE TABLE IF NOT EXISTS contents (
+    id uuid PRIMARY KEY,
+    title varchar(150) NOT NULL,
+    content text NOT NULL,
+    content_type varchar(255) NOT NULL,
+    fk_user_id varchar(255) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    tags jsonb,
+    updated_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS tags (
+    id uuid PRIMARY KEY,
+    name varchar(255) NOT NULL,
+    fk_user_id varchar(255) NOT NULL,
+    synonyms jsonb,
+    created_at timestamp(6),
+    updated_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS tag_contents (
+    id uuid PRIMARY KEY,
+    fk_tag_id uuid NOT NULL,
+    fk_content_id uuid NOT NULL,
+    fk_user_id varchar(255) NOT NULL,
+    created_at timestamp(6),
+    updated_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS tag_set_versions (
+    fk_user_id varchar(255) PRIMARY KEY,
+    version bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS content_suggestions (
+    id uuid PRIMARY KEY,
+    fk_content_id uuid NOT NULL,
+    fk_tag_id uuid NOT NULL,
+    fk_user_id varchar(255) NOT NULL,
+    score float(53) NOT NULL,
+    model_version varchar(255) NOT NULL,
+    created_at timestamp(6),
+    CONSTRAINT uk_content_suggestions_content_tag UNIQUE (fk_content_id, fk_tag_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_content_suggestions_content_score
+    ON content_suggestions (fk_content_id, score DESC, fk_tag_id);
+
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    cache_key varchar(64) PRIMARY KEY,
+    model_id varchar(255) NOT NULL,
+    vector bytea NOT NULL,
+    created_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS reindex_checkpoints (
+    id uuid PRIMARY KEY,
+    target_collection varchar(255) NOT NULL,
+    phase varchar(255) NOT NULL,
+    last_id varchar(255),
+    processed bigint NOT NULL,
+    started_at timestamp(6),
+    updated_at timestamp(6)
+);
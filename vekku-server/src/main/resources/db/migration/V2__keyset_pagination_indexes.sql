@@ -0,0 +1,11 @@
+-- Keyset pages seek on (owner, created_at, id); each page is one range scan.
+-- Built concurrently, so writes continue; Flyway runs this file outside a transaction.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contents_user_created
+    ON contents (fk_user_id, created_at, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tags_user_created
+    ON tags (fk_user_id, created_at, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tag_contents_content_created
+    ON tag_contents (fk_content_id, created_at, id);
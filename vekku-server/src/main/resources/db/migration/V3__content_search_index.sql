@@ -0,0 +1,7 @@
+-- Full-text content search; the expression must match ContentRepo.SEARCH_VECTOR.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contents_search
+    ON contents USING GIN (
+        (setweight(to_tsvector('english', title), 'A') ||
+        setweight(to_tsvector('english', content), 'B'))
+    );
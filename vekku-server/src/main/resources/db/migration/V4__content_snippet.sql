@@ -0,0 +1,9 @@
+-- Listing previews, so content pages never read the TEXT column.
+-- New rows get theirs from ContentEntity; this fills in existing ones
+-- with a plain cut, which the next edit of each row refines.
+
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS snippet varchar(201);
+
+UPDATE contents
+SET snippet = left(btrim(regexp_replace(content, '\s+', ' ', 'g')), 200)
+WHERE snippet IS NULL;
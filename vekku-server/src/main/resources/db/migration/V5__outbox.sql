@@ -0,0 +1,12 @@
+-- Transactional outbox, drained by OutboxRelay.
+-- The sequence steps by the entity's allocation size.
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id bigint PRIMARY KEY,
+    routing_key varchar(255) NOT NULL,
+    payload_type varchar(255) NOT NULL,
+    payload text NOT NULL,
+    created_at timestamp(6) NOT NULL
+);
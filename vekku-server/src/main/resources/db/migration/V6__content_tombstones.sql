@@ -0,0 +1,3 @@
+-- Deleted contents stay as tombstones until ContentPurger removes them.
+
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS deleted_at timestamp(6);
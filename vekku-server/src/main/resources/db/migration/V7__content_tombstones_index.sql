@@ -0,0 +1,4 @@
+-- Tombstones waiting for ContentPurger, oldest first; live rows stay out of it.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contents_deleted
+    ON contents (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Content bodies are compressed with LZ4 instead of pglz (see ContentCompressionJob).
+-- A catalog change only: stored values keep their method until rewritten.
+-- It needs an ACCESS EXCLUSIVE lock, so give up rather than queue behind a
+-- long transaction and block every read of contents meanwhile.
+
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE contents ALTER COLUMN content SET COMPRESSION lz4;
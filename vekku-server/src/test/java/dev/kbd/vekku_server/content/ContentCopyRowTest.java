@@ -0,0 +1,112 @@
+package dev.kbd.vekku_server.content;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.kbd.vekku_server.content.api.ContentDTOs.ContentType;
+import dev.kbd.vekku_server.content.api.ContentEvents;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ContentCopyRowTest {
+
+    private static final UUID ID = UUID.fromString(
+        "00000000-0000-0000-0000-000000000001"
+    );
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    private static ContentCopyRow row(String title, String body, long maxBytes) {
+        return new ContentCopyRow(
+            ID,
+            title,
+            ContentType.MARKDOWN,
+            "user",
+            NOW,
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+            maxBytes
+        );
+    }
+
+    /** Reads the whole row through a buffer of the given size */
+    private static String readAll(ContentCopyRow row, int bufferSize) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        int read;
+        while ((read = row.read(buffer, 0, buffer.length)) >= 0) {
+            result.append(buffer, 0, read);
+        }
+        return result.toString();
+    }
+
+    @Test
+    void writesTheColumnsInOrderAndEndsTheRow() throws IOException {
+        String copied = readAll(row("Title", "Body", 1024), 8192);
+
+        assertThat(copied).isEqualTo(
+            String.join(
+                "\t",
+                ID.toString(),
+                "Title",
+                "MARKDOWN",
+                "user",
+                NOW.toString(),
+                NOW.toString(),
+                "Body"
+            ) + "\n"
+        );
+    }
+
+    @Test
+    void escapesTheCopyDelimitersInTitleAndBody() throws IOException {
+        String copied = readAll(row("a\tb\\c", "line\none\r\ttab\\", 1024), 8192);
+
+        assertThat(copied).contains("\ta\\tb\\\\c\t");
+        assertThat(copied).endsWith("\tline\\none\\r\\ttab\\\\\n");
+    }
+
+    @Test
+    void splitsNoEscapeAcrossReadsOfOneCharacter() throws IOException {
+        String body = "x\\y\nz";
+
+        assertThat(readAll(row("t", body, 1024), 1)).isEqualTo(
+            readAll(row("t", body, 1024), 8192)
+        );
+    }
+
+    @Test
+    void rejectsNulCharacters() {
+        ContentCopyRow row = row("Title", "before\0after", 1024);
+
+        assertThatThrownBy(() -> readAll(row, 8192))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("NUL");
+    }
+
+    @Test
+    void hashesAndMeasuresTheBodyAsItIsRead() throws IOException {
+        String body = "Grüße\nan alle";
+        ContentCopyRow row = row("Title", body, 1024);
+
+        readAll(row, 7);
+
+        assertThat(row.contentHash()).isEqualTo(
+            ContentEvents.contentHash(body, ContentType.MARKDOWN)
+        );
+        assertThat(row.size()).isEqualTo(
+            body.getBytes(StandardCharsets.UTF_8).length
+        );
+        assertThat(row.snippet()).isEqualTo("Grüße an alle");
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimit() {
+        ContentCopyRow row = row("Title", "0123456789", 9);
+
+        assertThatThrownBy(() -> readAll(row, 8192))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.kbd.vekku_server.content;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ContentTagFilterTest {
+
+    private static Set<String> tags(String... tags) {
+        return new LinkedHashSet<>(List.of(tags));
+    }
+
+    @Test
+    void joinsAllAnyAndNoneTerms() {
+        String predicate = ContentTagFilter.predicate(
+            tags("a", "b"),
+            tags("c", "d"),
+            tags("e")
+        );
+
+        assertThat(predicate).isEqualTo(
+            "($[*] == \"a\") && ($[*] == \"b\") && " +
+            "(($[*] == \"c\") || ($[*] == \"d\")) && " +
+            "!($[*] == \"e\")"
+        );
+    }
+
+    @Test
+    void takesMissingSetsAsEmpty() {
+        assertThat(ContentTagFilter.predicate(null, tags("c"), null)).isEqualTo(
+            "(($[*] == \"c\"))"
+        );
+    }
+
+    @Test
+    void escapesQuotesAndBackslashes() {
+        String predicate = ContentTagFilter.predicate(
+            tags("say \"hi\"", "back\\slash"),
+            null,
+            null
+        );
+
+        assertThat(predicate).isEqualTo(
+            "($[*] == \"say \\\"hi\\\"\") && ($[*] == \"back\\\\slash\")"
+        );
+    }
+
+    @Test
+    void escapesControlCharactersAsUnicode() {
+        String predicate = ContentTagFilter.predicate(tags("a\nb\u0001"), null, null);
+
+        assertThat(predicate).isEqualTo("($[*] == \"a\\u000ab\\u0001\")");
+    }
+
+    @Test
+    void cannotCloseTheLiteralEarly() {
+        // Would end the string and add a term of its own if left unescaped
+        String predicate = ContentTagFilter.predicate(
+            tags("x\") || ($[*] == \"y"),
+            null,
+            null
+        );
+
+        assertThat(predicate).isEqualTo(
+            "($[*] == \"x\\\") || ($[*] == \\\"y\")"
+        );
+    }
+
+    @Test
+    void needsATagToFindRowsBy() {
+        assertThatThrownBy(() -> ContentTagFilter.predicate(null, Set.of(), tags("e")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void limitsTheNumberOfTags() {
+        Set<String> many = new LinkedHashSet<>(
+            IntStream.rangeClosed(0, ContentTagFilter.MAX_TAGS).mapToObj(i -> "t" + i).toList()
+        );
+
+        assertThatThrownBy(() -> ContentTagFilter.predicate(many, null, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
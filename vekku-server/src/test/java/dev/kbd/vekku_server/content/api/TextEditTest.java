@@ -0,0 +1,51 @@
+package dev.kbd.vekku_server.content.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.kbd.vekku_server.content.api.ContentEvents.TextEdit;
+import org.junit.jupiter.api.Test;
+
+class TextEditTest {
+
+    @Test
+    void keepsOnlyTheChangedRegion() {
+        TextEdit edit = TextEdit.of("hello world", "hello brave new world");
+
+        assertThat(edit).isEqualTo(new TextEdit(6, 16, ""));
+    }
+
+    @Test
+    void rebuildsThePreviousText() {
+        String previous = "The quick brown fox jumps";
+        String current = "The slow brown cat jumps";
+
+        assertThat(TextEdit.of(previous, current).previous(current)).isEqualTo(previous);
+    }
+
+    @Test
+    void handlesRepeatedCharactersAtTheEdges() {
+        // Prefix and suffix may not overlap, however much they share
+        String previous = "aaaa";
+        String current = "aa";
+        TextEdit edit = TextEdit.of(previous, current);
+
+        assertThat(edit.previous(current)).isEqualTo(previous);
+        assertThat(edit.replaced()).isEqualTo("aa");
+    }
+
+    @Test
+    void isEmptyForEqualTexts() {
+        assertThat(TextEdit.of("same", "same")).isEqualTo(new TextEdit(4, 4, ""));
+    }
+
+    @Test
+    void neverSplitsASurrogatePair() {
+        // Both emoji share their high surrogate, only the low one differs
+        String previous = "a😀b";
+        String current = "a😁b";
+        TextEdit edit = TextEdit.of(previous, current);
+
+        assertThat(edit).isEqualTo(new TextEdit(1, 3, "😀"));
+        assertThat(edit.previous(current)).isEqualTo(previous);
+    }
+}
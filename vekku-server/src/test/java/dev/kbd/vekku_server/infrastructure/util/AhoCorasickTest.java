@@ -0,0 +1,99 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickTest {
+
+    /** Matches as "pattern:start:end", in the order they are reported */
+    private static List<String> scan(List<String> patterns, String text) {
+        List<String> matches = new ArrayList<>();
+        AhoCorasick.of(patterns).scan(text, (pattern, start, end) ->
+            matches.add(pattern + ":" + start + ":" + end)
+        );
+        return matches;
+    }
+
+    @Test
+    void reportsPatternsEndingAtTheSameCharacterThroughOutputLinks() {
+        List<String> patterns = List.of("he", "she", "his", "hers");
+
+        assertThat(scan(patterns, "ushers")).containsExactly(
+            "1:1:4",
+            "0:2:4",
+            "3:2:6"
+        );
+    }
+
+    @Test
+    void followsTheFailureLinkAfterAMismatch() {
+        // "abc" fails over to "bc" when "d" is missing, which then finds "bcx"
+        List<String> patterns = List.of("abcd", "bcx");
+
+        assertThat(scan(patterns, "abcx")).containsExactly("1:1:4");
+    }
+
+    @Test
+    void followsFailureLinksThroughSeveralLevels() {
+        List<String> patterns = List.of("aaab", "aab", "ab");
+
+        assertThat(scan(patterns, "aaaab")).containsExactly(
+            "0:1:5",
+            "1:2:5",
+            "2:3:5"
+        );
+    }
+
+    @Test
+    void skipsEmptyPatternsAndReportsOnlyTheFirstOfDuplicates() {
+        List<String> patterns = List.of("", "ab", "ab");
+
+        assertThat(scan(patterns, "abab")).containsExactly("1:0:2", "1:2:4");
+    }
+
+    @Test
+    void isCaseSensitive() {
+        assertThat(scan(List.of("ai"), "AI")).isEmpty();
+    }
+
+    @Test
+    void findsWhatABruteForceSearchFinds() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<String> patterns = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(6); i++) {
+                String pattern = randomText(random, 1 + random.nextInt(4));
+                if (!patterns.contains(pattern)) {
+                    patterns.add(pattern);
+                }
+            }
+            String text = randomText(random, random.nextInt(30));
+
+            List<String> expected = new ArrayList<>();
+            for (int end = 1; end <= text.length(); end++) {
+                for (int p = 0; p < patterns.size(); p++) {
+                    if (text.substring(0, end).endsWith(patterns.get(p))) {
+                        expected.add(p + ":" + (end - patterns.get(p).length()) + ":" + end);
+                    }
+                }
+            }
+
+            assertThat(scan(patterns, text))
+                .as("patterns %s in %s", patterns, text)
+                .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    // A small alphabet, so patterns overlap and share prefixes often
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
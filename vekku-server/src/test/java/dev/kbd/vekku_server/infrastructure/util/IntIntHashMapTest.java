@@ -0,0 +1,123 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntIntHashMapTest {
+
+    // The smallest table: 8 slots
+    private static final int SLOTS = 8;
+
+    @Test
+    void readsAbsentKeysAsZero() {
+        IntIntHashMap map = new IntIntHashMap();
+
+        assertThat(map.get(7)).isZero();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void addsToValuesAndRemovesThemAtZero() {
+        IntIntHashMap map = new IntIntHashMap();
+
+        assertThat(map.addTo(7, 2)).isEqualTo(2);
+        assertThat(map.addTo(7, 3)).isEqualTo(5);
+        assertThat(map.size()).isEqualTo(1);
+
+        assertThat(map.addTo(7, -5)).isZero();
+        assertThat(map.get(7)).isZero();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void doesNotStoreAZeroDeltaForAnAbsentKey() {
+        IntIntHashMap map = new IntIntHashMap();
+
+        map.addTo(7, 0);
+
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void rejectsTheReservedKey() {
+        assertThatThrownBy(() -> new IntIntHashMap().addTo(0, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shiftsTheRestOfAProbeRunBackIntoTheGap() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        List<Integer> keys = keysWithHome(3, 3);
+        keys.forEach(key -> map.addTo(key, key));
+
+        // The first of the run leaves a gap the other two must not stop at
+        map.addTo(keys.get(0), -keys.get(0));
+
+        assertThat(map.get(keys.get(0))).isZero();
+        assertThat(map.get(keys.get(1))).isEqualTo(keys.get(1));
+        assertThat(map.get(keys.get(2))).isEqualTo(keys.get(2));
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shiftsAProbeRunThatWrapsAroundTheTable() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        List<Integer> keys = keysWithHome(SLOTS - 1, 3);
+        int other = keysWithHome(0, 1).get(0);
+        keys.forEach(key -> map.addTo(key, key));
+        // Its home is taken by the wrapped run, so it lands right after it
+        map.addTo(other, other);
+
+        map.addTo(keys.get(1), -keys.get(1));
+
+        assertThat(map.get(keys.get(0))).isEqualTo(keys.get(0));
+        assertThat(map.get(keys.get(2))).isEqualTo(keys.get(2));
+        assertThat(map.get(other)).isEqualTo(other);
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test
+    void agreesWithAHashMapUnderRandomAddsAndRemoves() {
+        Random random = new Random(42);
+        IntIntHashMap map = new IntIntHashMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 100_000; step++) {
+            // Few distinct keys, so runs collide and values hit zero often
+            int key = 1 + random.nextInt(200);
+            int delta = random.nextInt(5) - 2;
+            int value = expected.getOrDefault(key, 0) + delta;
+            if (value == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, value);
+            }
+
+            assertThat(map.addTo(key, delta)).isEqualTo(value);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (int key = 1; key <= 200; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, 0));
+        }
+    }
+
+    /** The first {@code count} keys whose home slot in an 8-slot table is {@code slot} */
+    private static List<Integer> keysWithHome(int slot, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 1; keys.size() < count; key++) {
+            // Same spreading as IntIntHashMap.mix
+            int h = key * 0x9E3779B9;
+            if (((h ^ (h >>> 16)) & (SLOTS - 1)) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
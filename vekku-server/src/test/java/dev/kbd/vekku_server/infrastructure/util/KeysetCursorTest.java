@@ -0,0 +1,48 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        KeysetCursor cursor = new KeysetCursor(
+            LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_000),
+            UUID.randomUUID()
+        );
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void keepsTheFullTimestampPrecision() {
+        KeysetCursor cursor = new KeysetCursor(
+            LocalDateTime.of(2024, 1, 1, 0, 0, 0, 1),
+            UUID.randomUUID()
+        );
+
+        assertThat(KeysetCursor.decode(cursor.encode()).createdAt()).isEqualTo(
+            cursor.createdAt()
+        );
+    }
+
+    @Test
+    void encodesToAUrlSafeString() {
+        String encoded = new KeysetCursor(LocalDateTime.now(), UUID.randomUUID()).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsCursorsItDidNotMake() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(UUID.randomUUID().toString()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
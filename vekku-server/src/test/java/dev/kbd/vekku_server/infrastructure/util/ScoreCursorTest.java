@@ -0,0 +1,24 @@
+package dev.kbd.vekku_server.infrastructure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ScoreCursorTest {
+
+    @Test
+    void decodesTheExactScoreItEncodes() {
+        // Seeks compare scores for equality, so no digit may be lost
+        ScoreCursor cursor = new ScoreCursor(0.1 + 0.2, UUID.randomUUID());
+
+        assertThat(ScoreCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsCursorsItDidNotMake() {
+        assertThatThrownBy(() -> ScoreCursor.decode(UUID.randomUUID().toString()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
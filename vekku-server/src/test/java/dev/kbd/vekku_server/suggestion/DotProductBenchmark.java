@@ -0,0 +1,108 @@
+package dev.kbd.vekku_server.suggestion;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Scalar against Vector API dot products over a block of tag rows, the
+ * inner loop of a {@link TagVectorIndex} search. Not run by the build:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=dev.kbd.vekku_server.suggestion.DotProductBenchmark
+ * </pre>
+ * Each operation scores the query against every row, so the score is the
+ * time of one full scan of a user's index. {@code TagSearchBenchmark}
+ * compares whole index searches with Qdrant's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class DotProductBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final long SEED = 42;
+
+    // 384 and 768 are the common embedding sizes; 390 leaves a scalar tail
+    @Param({ "384", "390", "768" })
+    int dimension;
+
+    float[] query;
+    float[] data;
+    byte[] codes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        query = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            query[i] = (float) random.nextGaussian();
+        }
+        data = new float[ROWS * dimension];
+        codes = new byte[ROWS * dimension];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (float) random.nextGaussian();
+            codes[i] = (byte) (random.nextInt(255) - 127);
+        }
+    }
+
+    @Benchmark
+    public float floatScalar() {
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += DotProducts.scalarDot(query, data, row * dimension, dimension);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float floatSimd() {
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += DotProducts.Simd.dot(query, data, row * dimension, dimension);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float int8Scalar() {
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += DotProducts.scalarDot(query, codes, row * dimension, dimension);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float int8Simd() {
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += DotProducts.Simd.dot(query, codes, row * dimension, dimension);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(DotProductBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
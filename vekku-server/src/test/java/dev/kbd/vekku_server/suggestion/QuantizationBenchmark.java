@@ -0,0 +1,181 @@
+package dev.kbd.vekku_server.suggestion;
+
+import dev.kbd.vekku_server.suggestion.TagVectorIndex.UserTagVectors;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Recall and latency of the quantization modes on a synthetic corpus, to
+ * pick {@code vekku.suggestion.quantization.mode}. Not run by the build:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=dev.kbd.vekku_server.suggestion.QuantizationBenchmark
+ * </pre>
+ * Recall is the share of the exact float32 top-K that a mode also returns.
+ * Quantized modes are searched the way the index does it: the compressed
+ * rows pick {@code oversampling * K} candidates, which are rescored at full
+ * precision. The index fetches those from Qdrant; here they come from a
+ * map, so the times leave out that round trip. Bytes per vector are those
+ * the index keeps and the candidate scan reads.
+ */
+class QuantizationBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int TAGS = 5_000;
+    private static final int CLUSTERS = 250;
+    private static final int QUERIES = 500;
+    private static final int TOP_K = 10;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        List<float[]> centers = new ArrayList<>();
+        for (int i = 0; i < CLUSTERS; i++) {
+            centers.add(randomUnit(random));
+        }
+        // Tags and queries sit near shared topics, like real embeddings do
+        List<float[]> tags = new ArrayList<>();
+        for (int i = 0; i < TAGS; i++) {
+            tags.add(near(centers.get(random.nextInt(CLUSTERS)), 0.6f, random));
+        }
+        List<float[]> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(near(centers.get(random.nextInt(CLUSTERS)), 0.8f, random));
+        }
+
+        List<String> ids = IntStream.range(0, TAGS).mapToObj(i -> "t" + i).toList();
+        UserTagVectors exact = new UserTagVectors(VectorQuantization.NONE, 1);
+        exact.putAll(ids, ids, tags);
+        Map<String, float[]> stored = new HashMap<>();
+        for (int i = 0; i < TAGS; i++) {
+            stored.put(ids.get(i), tags.get(i));
+        }
+
+        List<Set<String>> truth = queries
+            .stream()
+            .map(q -> exact.search(q, -1, TOP_K).keySet())
+            .toList();
+
+        System.out.printf(
+            "%d tags x %d dims, %d queries, recall@%d%n%n",
+            TAGS,
+            DIMENSION,
+            QUERIES,
+            TOP_K
+        );
+        System.out.printf(
+            "%-22s %8s %12s %12s%n",
+            "mode",
+            "recall",
+            "us/query",
+            "bytes/vec"
+        );
+        report("none (float32)", truth, q -> exact.search(q, -1, TOP_K).keySet(), queries, DIMENSION * Float.BYTES);
+        for (int oversampling : new int[] { 1, 2, 4, 8 }) {
+            UserTagVectors int8 = new UserTagVectors(VectorQuantization.SCALAR, oversampling);
+            int8.putAll(ids, ids, tags);
+            report(
+                "scalar, oversample " + oversampling,
+                truth,
+                q -> rescored(int8, stored, q),
+                queries,
+                DIMENSION + Float.BYTES
+            );
+        }
+        for (int oversampling : new int[] { 1, 2, 4, 8 }) {
+            UserTagVectors binary = new UserTagVectors(VectorQuantization.BINARY, oversampling);
+            binary.putAll(ids, ids, tags);
+            report(
+                "binary, oversample " + oversampling,
+                truth,
+                q -> rescored(binary, stored, q),
+                queries,
+                DIMENSION / Byte.SIZE
+            );
+        }
+    }
+
+    private static Set<String> rescored(
+        UserTagVectors vectors,
+        Map<String, float[]> stored,
+        float[] query
+    ) {
+        return UserTagVectors.rescore(
+            query,
+            vectors.candidates(query, TOP_K),
+            stored,
+            -1,
+            TOP_K
+        ).keySet();
+    }
+
+    private static void report(
+        String mode,
+        List<Set<String>> truth,
+        Function<float[], Set<String>> search,
+        List<float[]> queries,
+        int bytesPerVector
+    ) {
+        // Warm up the JIT before timing
+        for (int i = 0; i < 3; i++) {
+            queries.forEach(search::apply);
+        }
+        long start = System.nanoTime();
+        double recall = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            Set<String> found = new HashSet<>(search.apply(queries.get(i)));
+            found.retainAll(truth.get(i));
+            recall += (double) found.size() / truth.get(i).size();
+        }
+        long micros = (System.nanoTime() - start) / 1_000 / queries.size();
+        System.out.printf(
+            "%-22s %8.3f %12d %12d%n",
+            mode,
+            recall / queries.size(),
+            micros,
+            bytesPerVector
+        );
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return unit(vector);
+    }
+
+    /** A unit vector at roughly the given cosine similarity to the center */
+    private static float[] near(float[] center, float similarity, Random random) {
+        float[] noise = randomUnit(random);
+        float[] vector = new float[DIMENSION];
+        float spread = (float) Math.sqrt(1 - similarity * similarity);
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = similarity * center[i] + spread * noise[i];
+        }
+        return unit(vector);
+    }
+
+    private static float[] unit(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= (float) norm;
+        }
+        return vector;
+    }
+}
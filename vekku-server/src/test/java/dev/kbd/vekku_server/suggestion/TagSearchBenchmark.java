@@ -0,0 +1,181 @@
+package dev.kbd.vekku_server.suggestion;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.kbd.vekku_server.suggestion.SuggestionVectorStore.TagQuery;
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QdrantGrpcClient;
+import io.qdrant.client.grpc.Points.PointStruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.qdrant.QdrantContainer;
+
+/**
+ * One user's tag search in Qdrant against the same search in the
+ * in-memory {@link TagVectorIndex}, to see what the index saves and what
+ * quantization costs each. Needs Docker, not run by the build:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=dev.kbd.vekku_server.suggestion.TagSearchBenchmark
+ * </pre>
+ * Each operation scores the chunks of one content, as a suggestion does.
+ * Qdrant runs in a container of the version docker-compose uses, so its
+ * times include the gRPC round trip a real node pays. Quantized indexes
+ * rescore against vectors read from the same Qdrant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class TagSearchBenchmark {
+
+    private static final String QDRANT_IMAGE = "qdrant/qdrant:v1.13.4";
+    private static final int QDRANT_GRPC_PORT = 6334;
+    private static final String USER_ID = "benchmark-user";
+    private static final int DIMENSION = 384;
+    private static final int CHUNKS = 8;
+    private static final int TOP_K = 10;
+    private static final double THRESHOLD = 0.0;
+    private static final int UPSERT_BATCH_SIZE = 500;
+    private static final long SEED = 42;
+
+    @Param({ "1000", "5000" })
+    int tags;
+
+    @Param({ "NONE", "SCALAR", "BINARY" })
+    VectorQuantization quantization;
+
+    QdrantContainer qdrant;
+    QdrantClient qdrantClient;
+    SuggestionVectorStore store;
+    TagVectorIndex index;
+    List<float[]> chunkVectors;
+    List<TagQuery> tagQueries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        qdrant = new QdrantContainer(QDRANT_IMAGE);
+        qdrant.start();
+        qdrantClient = new QdrantClient(
+            QdrantGrpcClient.newBuilder(
+                qdrant.getHost(),
+                qdrant.getMappedPort(QDRANT_GRPC_PORT),
+                false
+            ).build()
+        );
+
+        EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+        when(embeddingModel.dimensions()).thenReturn(DIMENSION);
+        store = new SuggestionVectorStore(qdrantClient, embeddingModel);
+        ReflectionTestUtils.setField(store, "baseCollectionName", "benchmark");
+        ReflectionTestUtils.setField(store, "quantization", quantization);
+        ReflectionTestUtils.setField(store, "oversampling", 2.0);
+        store.initialize();
+
+        Random random = new Random(SEED);
+        List<TagDTO> userTags = new ArrayList<>(tags);
+        List<PointStruct> points = new ArrayList<>();
+        for (int i = 0; i < tags; i++) {
+            TagDTO tag = new TagDTO(
+                UUID.randomUUID().toString(),
+                "tag-" + i,
+                USER_ID,
+                Set.of(),
+                null,
+                null
+            );
+            userTags.add(tag);
+            points.add(
+                SuggestionPoints.termPoint(tag.id(), USER_ID, tag.name(), randomUnit(random))
+            );
+            if (points.size() == UPSERT_BATCH_SIZE) {
+                store.upsert(points);
+                points = new ArrayList<>();
+            }
+        }
+        store.upsert(points);
+
+        ITagService tagService = mock(ITagService.class);
+        when(tagService.countTags(USER_ID)).thenReturn((long) tags);
+        when(tagService.getAllTags(USER_ID)).thenReturn(userTags);
+        index = new TagVectorIndex(tagService, store);
+        ReflectionTestUtils.setField(index, "maxTagsPerUser", tags);
+        ReflectionTestUtils.setField(index, "quantization", quantization);
+        ReflectionTestUtils.setField(index, "oversampling", 2.0);
+
+        chunkVectors = new ArrayList<>(CHUNKS);
+        tagQueries = new ArrayList<>(CHUNKS);
+        for (int i = 0; i < CHUNKS; i++) {
+            float[] vector = randomUnit(random);
+            chunkVectors.add(vector);
+            tagQueries.add(new TagQuery(USER_ID, vector));
+        }
+        // Loads the index outside the measurement
+        index.search(USER_ID, 0, chunkVectors, THRESHOLD, TOP_K);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        qdrantClient.close();
+        qdrant.stop();
+    }
+
+    @Benchmark
+    public List<Map<String, Double>> qdrant() {
+        return store.searchTags(tagQueries, THRESHOLD, TOP_K);
+    }
+
+    @Benchmark
+    public List<Map<String, Double>> inMemory() {
+        return index.search(USER_ID, 0, chunkVectors, THRESHOLD, TOP_K).orElseThrow();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(TagSearchBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] vector = new float[DIMENSION];
+        double norm = 0;
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+}
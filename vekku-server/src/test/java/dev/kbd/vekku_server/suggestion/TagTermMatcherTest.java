@@ -0,0 +1,136 @@
+package dev.kbd.vekku_server.suggestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.kbd.vekku_server.tag.api.ITagService;
+import dev.kbd.vekku_server.tag.api.TagDTOs.TagDTO;
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TagTermMatcherTest {
+
+    private static final String USER = "user";
+
+    @Mock
+    private ITagService tagService;
+
+    private TagTermMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new TagTermMatcher(tagService);
+    }
+
+    private static TagDTO tag(String id, String name, String... synonyms) {
+        return new TagDTO(id, name, USER, Set.of(synonyms), null, null);
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        when(tagService.getAllTags(USER)).thenReturn(List.of(tag("t1", "art")));
+
+        assertThat(matcher.match(USER, 1, "A party at the gallery")).isEmpty();
+        assertThat(matcher.match(USER, 1, "Modern art, mostly")).containsExactly("t1");
+        assertThat(matcher.match(USER, 1, "art")).containsExactly("t1");
+    }
+
+    @Test
+    void ignoresCaseAndWhitespaceDifferences() {
+        when(tagService.getAllTags(USER)).thenReturn(
+            List.of(tag("t1", "Machine  Learning"))
+        );
+
+        assertThat(matcher.match(USER, 1, "notes on MACHINE\nlearning")).containsExactly(
+            "t1"
+        );
+    }
+
+    @Test
+    void matchesTheSynonymsOfATag() {
+        when(tagService.getAllTags(USER)).thenReturn(
+            List.of(tag("t1", "Artificial Intelligence", "AI"))
+        );
+
+        assertThat(matcher.match(USER, 1, "what ai can do")).containsExactly("t1");
+    }
+
+    @Test
+    void reportsEveryTagOfASharedTerm() {
+        when(tagService.getAllTags(USER)).thenReturn(
+            List.of(tag("t1", "java"), tag("t2", "Java"))
+        );
+
+        assertThat(matcher.match(USER, 1, "java")).containsExactlyInAnyOrder("t1", "t2");
+    }
+
+    @Test
+    void loadsAUserOnceAndAppliesLaterChanges() {
+        when(tagService.getAllTags(USER)).thenReturn(List.of(tag("t1", "java")));
+        matcher.match(USER, 1, "java");
+
+        matcher.put(USER, "t2", Set.of("kotlin"));
+        matcher.remove(USER, "t1", Set.of("java"));
+
+        assertThat(matcher.match(USER, 1, "java and kotlin")).containsExactly("t2");
+        verify(tagService, times(1)).getAllTags(USER);
+    }
+
+    @Test
+    void ignoresChangesOfUsersThatAreNotLoaded() {
+        matcher.put(USER, "t2", Set.of("kotlin"));
+        when(tagService.getAllTags(USER)).thenReturn(List.of(tag("t1", "java")));
+
+        assertThat(matcher.match(USER, 1, "java and kotlin")).containsExactly("t1");
+    }
+
+    @Test
+    void reloadsTermsChangedOnAnotherNode() {
+        when(tagService.getAllTags(USER)).thenReturn(
+            List.of(tag("t1", "java")),
+            List.of(tag("t2", "kotlin"))
+        );
+        matcher.match(USER, 1, "java");
+
+        // Another node consumed the change and bumped the version
+        assertThat(matcher.match(USER, 2, "java and kotlin")).containsExactly("t2");
+        assertThat(matcher.match(USER, 1, "java and kotlin")).containsExactly("t2");
+        verify(tagService, times(2)).getAllTags(USER);
+    }
+
+    // A tag that spells one term two ways, like "AI" and "ai", must keep
+    // matching it while either spelling is left
+
+    @Test
+    void keepsATermWhileAnotherSpellingOfItIsLeft() {
+        when(tagService.getAllTags(USER)).thenReturn(List.of(tag("t1", "AI", "ai")));
+        matcher.match(USER, 1, "ai");
+
+        Set<String> before = Set.of("AI", "ai");
+        Set<String> after = Set.of("AI");
+        matcher.remove(USER, "t1", TagTerms.removed(before, after));
+
+        assertThat(matcher.match(USER, 1, "what ai can do")).containsExactly("t1");
+    }
+
+    @Test
+    void dropsATermOnceNoSpellingIsLeft() {
+        when(tagService.getAllTags(USER)).thenReturn(List.of(tag("t1", "AI", "ai")));
+        matcher.match(USER, 1, "ai");
+
+        Set<String> before = Set.of("AI", "ai");
+        Set<String> after = Set.of();
+        matcher.remove(USER, "t1", TagTerms.removed(before, after));
+
+        assertThat(matcher.match(USER, 1, "what ai can do")).isEmpty();
+    }
+}
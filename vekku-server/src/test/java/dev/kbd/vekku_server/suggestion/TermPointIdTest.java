@@ -0,0 +1,52 @@
+package dev.kbd.vekku_server.suggestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.kbd.vekku_server.tag.api.TagTerms;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Spellings of a term that differ only in case or whitespace share one
+ * point, so removing one spelling must not delete the point the other
+ * still uses.
+ */
+class TermPointIdTest {
+
+    @Test
+    void givesSpellingsOfOneTermOnePoint() {
+        assertThat(SuggestionVectorStore.termPointId("t1", "AI")).isEqualTo(
+            SuggestionVectorStore.termPointId("t1", " ai ")
+        );
+        assertThat(
+            SuggestionVectorStore.termPointId("t1", "Machine  Learning")
+        ).isEqualTo(SuggestionVectorStore.termPointId("t1", "machine learning"));
+    }
+
+    @Test
+    void keepsTheTermsOfEachTagApart() {
+        assertThat(SuggestionVectorStore.termPointId("t1", "ai")).isNotEqualTo(
+            SuggestionVectorStore.termPointId("t2", "ai")
+        );
+    }
+
+    @Test
+    void removesNoPointWhileAnotherSpellingUsesIt() {
+        Set<String> before = Set.of("AI", "ai", "ML");
+        Set<String> after = Set.of("AI", "ML");
+
+        assertThat(
+            TagTerms.removed(before, after)
+                .stream()
+                .map(term -> SuggestionVectorStore.termPointId("t1", term))
+        ).isEmpty();
+    }
+
+    @Test
+    void addsNoPointForANewSpellingOfAStoredTerm() {
+        Set<String> before = Set.of("AI");
+        Set<String> after = Set.of("AI", "ai");
+
+        assertThat(TagTerms.added(before, after)).isEmpty();
+    }
+}
@@ -0,0 +1,52 @@
+package dev.kbd.vekku_server.tag.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TagTermsTest {
+
+    @Test
+    void foldsCaseAndWhitespaceIntoTheKey() {
+        assertThat(TagTerms.key("  Machine \t\n Learning ")).isEqualTo(
+            "machine learning"
+        );
+        assertThat(TagTerms.key("AI")).isEqualTo(TagTerms.key("ai"));
+    }
+
+    @Test
+    void keepsTheFirstSpellingOfEachKey() {
+        assertThat(TagTerms.of("AI", List.of("ai", " A I", "Ai ", "ML", " "))).containsExactly(
+            "AI",
+            " A I",
+            "ML"
+        );
+    }
+
+    @Test
+    void doesNotRemoveASpellingThatAnotherStillCovers() {
+        Set<String> before = Set.of("AI", "ai");
+        Set<String> after = Set.of("AI");
+
+        assertThat(TagTerms.removed(before, after)).isEmpty();
+        assertThat(TagTerms.added(before, after)).isEmpty();
+    }
+
+    @Test
+    void removesAKeyOnceNoSpellingIsLeft() {
+        Set<String> before = Set.of("AI", "ai", "ML");
+        Set<String> after = Set.of("ML");
+
+        assertThat(TagTerms.removed(before, after)).containsExactlyInAnyOrder("AI", "ai");
+    }
+
+    @Test
+    void doesNotAddANewSpellingOfAKnownKey() {
+        Set<String> before = Set.of("AI");
+        Set<String> after = Set.of("AI", "ai", "ML");
+
+        assertThat(TagTerms.added(before, after)).containsExactly("ML");
+    }
+}